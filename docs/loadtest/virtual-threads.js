@@ -0,0 +1,51 @@
+// Нагрузочный тест чтений (k6): пул потоков Tomcat против виртуальных потоков, влияние логирования на p99.
+// Запуск: k6 run -e BASE_URL=http://localhost:8080 -e VUS=1000 --summary-export=result.json docs/loadtest/virtual-threads.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '1000');
+const USERS = parseInt(__ENV.USERS || '100');
+
+export const options = {
+    scenarios: {
+        reads: {
+            executor: 'ramping-vus',
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '10s', target: 0 },
+            ],
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+// Новые пользователи на каждый прогон; токены делятся между виртуальными клиентами
+export function setup() {
+    const run = Date.now();
+    const tokens = [];
+    for (let i = 0; i < USERS; i++) {
+        const username = `load_${run}_${i}`;
+        const response = http.post(`${BASE_URL}/api/auth/register`, JSON.stringify({
+            username: username,
+            email: `${username}@example.com`,
+            password: 'password123',
+        }), { headers: { 'Content-Type': 'application/json' } });
+        check(response, { registered: (r) => r.status === 200 || r.status === 201 });
+        tokens.push(response.json('token'));
+    }
+    return { tokens: tokens };
+}
+
+export default function (data) {
+    const token = data.tokens[(__VU - 1) % data.tokens.length];
+    const params = { headers: { Authorization: `Bearer ${token}` } };
+
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/users/me`, null, params],
+        ['GET', `${BASE_URL}/api/cards/my?page=0&size=20`, null, params],
+        ['GET', `${BASE_URL}/api/transfers/my?page=0&size=20`, null, params],
+    ]);
+    responses.forEach((r) => check(r, { ok: (res) => res.status === 200 }));
+}
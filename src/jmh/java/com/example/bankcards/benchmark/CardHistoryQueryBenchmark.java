@@ -0,0 +1,170 @@
+package com.example.bankcards.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * История карты на PostgreSQL: прежний OR-запрос с индексами по одной колонке против
+ * UNION ALL с индексами (card_id, transfer_date, id). Данные генерируются один раз
+ * в отдельной схеме bench_card_history (по умолчанию 10M переводов по 100k картам).
+ * <p>
+ * Запуск: BENCH_DB_URL=jdbc:postgresql://localhost:5432/TESTDB BENCH_DB_USER=... BENCH_DB_PASSWORD=...
+ * mvn -P jmh -Djmh.includes=CardHistoryQueryBenchmark (переменные окружения доходят до форка JMH).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardHistoryQueryBenchmark {
+
+    private static final long TRANSFERS = Long.parseLong(env("BENCH_TRANSFERS", "10000000"));
+    private static final int CARDS = Integer.parseInt(env("BENCH_CARDS", "100000"));
+    private static final int PAGE_SIZE = 10;
+
+    // До: OR по двум колонкам, Postgres делает BitmapOr и сортирует все переводы карты
+    private static final String OR_QUERY =
+            "SELECT * FROM transfers WHERE (from_card_id = ? OR to_card_id = ?) AND user_id = ? " +
+            "ORDER BY transfer_date DESC LIMIT ? OFFSET ?";
+
+    // После: UNION ALL, как в TransferRepository.findCardHistory, но сразу со строками переводов
+    private static final String UNION_QUERY =
+            "(SELECT * FROM transfers WHERE from_card_id = ? AND user_id = ? " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT * FROM transfers WHERE to_card_id = ? AND from_card_id <> ? AND user_id = ? " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT ?) " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT ? OFFSET ?";
+
+    @Param({"OR", "UNION_ALL"})
+    public String query;
+
+    @Param({"0", "1000"})
+    public int offset;
+
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                env("BENCH_DB_URL", "jdbc:postgresql://localhost:5432/TESTDB"),
+                env("BENCH_DB_USER", "postgres"),
+                env("BENCH_DB_PASSWORD", "mydhuua"));
+        prepareDataset();
+
+        if ("OR".equals(query)) {
+            // Индексы "до" и "после" лежат в одной схеме, поэтому для OR прячем составные
+            connection.setAutoCommit(false);
+            try (Statement st = connection.createStatement()) {
+                st.execute("DROP INDEX bench_card_history.idx_bench_from_card_date");
+                st.execute("DROP INDEX bench_card_history.idx_bench_to_card_date");
+            }
+            statement = connection.prepareStatement(OR_QUERY);
+        } else {
+            statement = connection.prepareStatement(UNION_QUERY);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback(); // возвращает удаленные для OR индексы
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void cardHistoryPage(Blackhole blackhole) throws SQLException {
+        long cardId = ThreadLocalRandom.current().nextInt(1, CARDS + 1);
+        long userId = ownerOf(cardId);
+
+        if ("OR".equals(query)) {
+            statement.setLong(1, cardId);
+            statement.setLong(2, cardId);
+            statement.setLong(3, userId);
+            statement.setInt(4, PAGE_SIZE);
+            statement.setInt(5, offset);
+        } else {
+            long scanLimit = offset + PAGE_SIZE;
+            statement.setLong(1, cardId);
+            statement.setLong(2, userId);
+            statement.setLong(3, scanLimit);
+            statement.setLong(4, cardId);
+            statement.setLong(5, cardId);
+            statement.setLong(6, userId);
+            statement.setLong(7, scanLimit);
+            statement.setInt(8, PAGE_SIZE);
+            statement.setInt(9, offset);
+        }
+
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong("id"));
+            }
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+
+    // Карты сгруппированы по 10 на владельца, переводы идут между картами одного владельца
+    private static long ownerOf(long cardId) {
+        return (cardId - 1) / 10 + 1;
+    }
+
+    private void prepareDataset() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE SCHEMA IF NOT EXISTS bench_card_history");
+            st.execute("SET search_path TO bench_card_history");
+            st.execute("CREATE TABLE IF NOT EXISTS transfers (" +
+                    "id BIGSERIAL PRIMARY KEY, from_card_id BIGINT NOT NULL, to_card_id BIGINT NOT NULL, " +
+                    "amount DECIMAL(15, 2) NOT NULL, transfer_date TIMESTAMP NOT NULL, status VARCHAR(20) NOT NULL, " +
+                    "description VARCHAR(500), user_id BIGINT NOT NULL, idempotency_key VARCHAR(100))");
+
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM transfers")) {
+                rs.next();
+                if (rs.getLong(1) >= TRANSFERS) {
+                    return;
+                }
+            }
+
+            st.execute("TRUNCATE transfers");
+            st.execute("INSERT INTO transfers (from_card_id, to_card_id, amount, transfer_date, status, user_id) " +
+                    "SELECT f.card, (f.card - 1) / 10 * 10 + 1 + (f.card % 10), 10.00, " +
+                    "TIMESTAMP '2020-01-01' + g * INTERVAL '1 second', 'COMPLETED', (f.card - 1) / 10 + 1 " +
+                    "FROM generate_series(1, " + TRANSFERS + ") g " +
+                    "CROSS JOIN LATERAL (SELECT (hashint8(g) & 2147483647) % " + CARDS + " + 1 AS card) f");
+            st.execute("CREATE INDEX idx_bench_from_card ON transfers (from_card_id)");
+            st.execute("CREATE INDEX idx_bench_to_card ON transfers (to_card_id)");
+            st.execute("CREATE INDEX idx_bench_user ON transfers (user_id)");
+            st.execute("CREATE INDEX idx_bench_from_card_date ON transfers (from_card_id, transfer_date DESC, id DESC)");
+            st.execute("CREATE INDEX idx_bench_to_card_date ON transfers (to_card_id, transfer_date DESC, id DESC)");
+            st.execute("ANALYZE transfers");
+        }
+    }
+}
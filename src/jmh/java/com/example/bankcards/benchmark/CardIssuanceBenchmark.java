@@ -0,0 +1,88 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankCardsApplication;
+import com.example.bankcards.dto.BulkCardIssueRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Интеграционный замер POST /api/admin/cards/bulk без HTTP: полный контекст приложения
+ * с профилем test (H2 в памяти), выпуск 10k карт (100 пользователей по 100 карт) за вызов.
+ * Время одного выпуска - генерация номеров, проверка коллизий, шифрование и batch insert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CardIssuanceBenchmark {
+
+    private static final int USERS = 100;
+    private static final int CARDS_PER_USER = 100;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private BulkCardIssueRequest request;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankCardsApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "spring.jpa.show-sql=false")
+                .run();
+        cardService = context.getBean(CardService.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<Long> userIds = IntStream.range(0, USERS)
+                .mapToObj(i -> userRepository.save(User.builder()
+                        .username("bulk" + i)
+                        .email("bulk" + i + "@example.com")
+                        .password("encoded-password")
+                        .firstName("Bulk")
+                        .lastName("User " + i)
+                        .role(Role.USER)
+                        .isActive(true)
+                        .build()).getId())
+                .collect(Collectors.toList());
+
+        request = BulkCardIssueRequest.builder()
+                .userIds(userIds)
+                .cardsPerUser(CARDS_PER_USER)
+                .expiryDate(LocalDate.now().plusYears(4))
+                .initialBalance(BigDecimal.ZERO)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int issueTenThousandCards() {
+        return cardService.issueCards(request).getIssued();
+    }
+}
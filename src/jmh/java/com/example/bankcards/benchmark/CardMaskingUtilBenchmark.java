@@ -0,0 +1,130 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardMaskingUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает CardMaskingUtil с прежней реализацией на replaceAll("\\s+", "") и matches("\\d+").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardMaskingUtilBenchmark {
+
+    @Param({"4532015112830366", "4532 0151 1283 0366"})
+    public String cardNumber;
+
+    private CardMaskingUtil cardMaskingUtil;
+    private char[] cardNumberChars;
+
+    @Setup
+    public void setUp() {
+        cardMaskingUtil = new CardMaskingUtil();
+        cardNumberChars = cardNumber.toCharArray();
+    }
+
+    @Benchmark
+    public boolean isValidLegacy() {
+        return legacyIsValidCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return cardMaskingUtil.isValidCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public boolean isValidChars() {
+        return cardMaskingUtil.isValidCardNumber(cardNumberChars);
+    }
+
+    @Benchmark
+    public String maskLegacy() {
+        return legacyMaskCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public String mask() {
+        return cardMaskingUtil.maskCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public String formatLegacy() {
+        return legacyFormatCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public String format() {
+        return cardMaskingUtil.formatCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public String lastFourLegacy() {
+        String cleaned = cardNumber.replaceAll("\\s+", "");
+        return cleaned.substring(Math.max(0, cleaned.length() - 4));
+    }
+
+    @Benchmark
+    public String lastFour() {
+        return cardMaskingUtil.getLastFour(cardNumber);
+    }
+
+    private String legacyMaskCardNumber(String value) {
+        if (value == null || value.length() < 4) {
+            return "****";
+        }
+        String cleaned = value.replaceAll("\\s+", "");
+        return "**** **** **** " + cleaned.substring(Math.max(0, cleaned.length() - 4));
+    }
+
+    private String legacyFormatCardNumber(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String cleaned = value.replaceAll("\\s+", "");
+        if (cleaned.length() != 16) {
+            return cleaned;
+        }
+        return cleaned.substring(0, 4) + " " + cleaned.substring(4, 8) + " " +
+                cleaned.substring(8, 12) + " " + cleaned.substring(12, 16);
+    }
+
+    private boolean legacyIsValidCardNumber(String value) {
+        if (value == null) {
+            return false;
+        }
+        String cleaned = value.replaceAll("\\s+", "");
+        if (cleaned.length() != 16 || !cleaned.matches("\\d+")) {
+            return false;
+        }
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = cleaned.length() - 1; i >= 0; i--) {
+            int digit = Character.getNumericValue(cleaned.charAt(i));
+            if (alternate) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генерация номера карты и CVV: на каждую карту при выпуске, в том числе массовом.
+ * Вариант с 4 потоками показывает конкуренцию запросов за общий SecureRandom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardNumberGeneratorBenchmark {
+
+    private CardNumberGenerator cardNumberGenerator;
+
+    @Setup
+    public void setUp() {
+        cardNumberGenerator = new CardNumberGenerator();
+    }
+
+    @Benchmark
+    public String generateCardNumber() {
+        return cardNumberGenerator.generateCardNumber();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateCardNumberContended() {
+        return cardNumberGenerator.generateCardNumber();
+    }
+
+    @Benchmark
+    public String generateCVV() {
+        return cardNumberGenerator.generateCVV();
+    }
+}
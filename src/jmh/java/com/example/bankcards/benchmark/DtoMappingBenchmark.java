@@ -0,0 +1,127 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardDTO;
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.CardMaskingUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CardService.mapToDTO и TransferService.mapToDTO: вызываются для каждой строки каждой страницы.
+ * Методы приватные, поэтому вызываются через заранее найденный Method; зависимости сервисов,
+ * кроме CardMaskingUtil, в маппинге не участвуют и не передаются.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private CardService cardService;
+    private TransferService transferService;
+    private Method cardMapToDTO;
+    private Method transferMapToDTO;
+    private Card card;
+    private Transfer transfer;
+    private List<Transfer> page;
+
+    @Setup
+    public void setUp() {
+        CardMaskingUtil cardMaskingUtil = new CardMaskingUtil();
+        cardService = new CardService(null, null, null, null, cardMaskingUtil, null, null);
+        transferService = new TransferService(null, null, null, cardMaskingUtil, null, null, null);
+
+        cardMapToDTO = ReflectionUtils.findMethod(CardService.class, "mapToDTO", Card.class);
+        transferMapToDTO = ReflectionUtils.findMethod(TransferService.class, "mapToDTO", Transfer.class);
+        ReflectionUtils.makeAccessible(cardMapToDTO);
+        ReflectionUtils.makeAccessible(transferMapToDTO);
+
+        User owner = User.builder()
+                .id(1L)
+                .username("bench_user")
+                .password("encoded-password")
+                .role(Role.USER)
+                .isActive(true)
+                .build();
+        card = createCard(owner, 1L, "0366");
+        Card toCard = createCard(owner, 2L, "2832");
+
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(Transfer.builder()
+                    .id((long) i)
+                    .fromCard(i % 2 == 0 ? card : toCard)
+                    .toCard(i % 2 == 0 ? toCard : card)
+                    .amount(new BigDecimal("125.50"))
+                    .transferDate(LocalDateTime.now().minusMinutes(i))
+                    .status(TransferStatus.COMPLETED)
+                    .description("Transfer " + i)
+                    .user(owner)
+                    .build());
+        }
+        transfer = page.get(0);
+    }
+
+    @Benchmark
+    public CardDTO mapCard() throws Exception {
+        return (CardDTO) cardMapToDTO.invoke(cardService, card);
+    }
+
+    @Benchmark
+    public TransferDTO mapTransfer() throws Exception {
+        return (TransferDTO) transferMapToDTO.invoke(transferService, transfer);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void mapTransferPage(Blackhole blackhole) throws Exception {
+        for (Transfer value : page) {
+            blackhole.consume(transferMapToDTO.invoke(transferService, value));
+        }
+    }
+
+    private Card createCard(User owner, Long id, String last4) {
+        return Card.builder()
+                .id(id)
+                .cardNumber("encrypted-" + last4)
+                .cardNumberHash("hash-" + last4)
+                .cardLast4(last4)
+                .cardHolder("BENCH USER")
+                .expiryDate(LocalDate.now().plusYears(3))
+                .status(CardStatus.ACTIVE)
+                .balance(new BigDecimal("1000.00"))
+                .owner(owner)
+                .build();
+    }
+}
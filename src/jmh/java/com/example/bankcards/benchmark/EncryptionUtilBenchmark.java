@@ -0,0 +1,104 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.EncryptionUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает EncryptionUtil с прежней реализацией (Cipher.getInstance и новый ключ на каждый вызов).
+ * Страница переводов = 100 строк по 2 номера карт = 200 расшифровок.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionUtilBenchmark {
+
+    private static final int PAGE_DECRYPTS = 200;
+    private static final String SECRET_KEY = "MySuperSecretKey123456789012";
+
+    private EncryptionUtil encryptionUtil;
+    private String cardNumber;
+    private String encrypted;
+    private byte[] encryptedBytes;
+    private String[] page;
+
+    @Setup
+    public void setUp() {
+        encryptionUtil = new EncryptionUtil();
+        cardNumber = "4532015112830366";
+        encrypted = encryptionUtil.encrypt(cardNumber);
+        encryptedBytes = Base64.getDecoder().decode(encrypted);
+        page = new String[PAGE_DECRYPTS];
+        for (int i = 0; i < PAGE_DECRYPTS; i++) {
+            page[i] = encryptionUtil.encrypt(String.format("4532%012d", i));
+        }
+    }
+
+    @Benchmark
+    public String encryptLegacy() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET_KEY.getBytes(), 0, 16, "AES"));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(cardNumber.getBytes()));
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionUtil.encrypt(cardNumber);
+    }
+
+    @Benchmark
+    public String decryptLegacy() throws Exception {
+        return legacyDecrypt(encrypted);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionUtil.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public byte[] decryptBytes() {
+        return encryptionUtil.decrypt(encryptedBytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_DECRYPTS)
+    public void decryptPageLegacy(Blackhole blackhole) throws Exception {
+        for (String value : page) {
+            blackhole.consume(legacyDecrypt(value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_DECRYPTS)
+    public void decryptPage(Blackhole blackhole) {
+        for (String value : page) {
+            blackhole.consume(encryptionUtil.decrypt(value));
+        }
+    }
+
+    private String legacyDecrypt(String value) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(SECRET_KEY.getBytes(), 0, 16, "AES"));
+        return new String(cipher.doFinal(Base64.getDecoder().decode(value)), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankCardsApplication;
+import com.example.bankcards.dto.BulkCardIssueRequest;
+import com.example.bankcards.dto.CardDTO;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransferService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /api/transfers/batch против N вызовов POST /api/transfers без HTTP: полный контекст
+ * приложения с профилем prod на PostgreSQL (миграции Liquibase в отдельной схеме bench_transfer_batch).
+ * Одна операция - N переводов между двумя картами пользователя: одним createTransfers
+ * (одна транзакция, одна блокировка карт, JDBC batch) или N транзакциями createTransfer.
+ * <p>
+ * Запуск: BENCH_DB_URL=jdbc:postgresql://localhost:5432/TESTDB BENCH_DB_USER=... BENCH_DB_PASSWORD=...
+ * mvn -P jmh -Djmh.includes=TransferBatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBatchBenchmark {
+
+    private static final String SCHEMA = "bench_transfer_batch";
+
+    @Param({"10", "100"})
+    public int transfers;
+
+    private ConfigurableApplicationContext context;
+    private TransferService transferService;
+    private JdbcTemplate jdbcTemplate;
+    private List<TransferRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = env("BENCH_DB_URL", "jdbc:postgresql://localhost:5432/TESTDB");
+        String user = env("BENCH_DB_USER", "postgres");
+        String password = env("BENCH_DB_PASSWORD", "mydhuua");
+
+        // Чистая схема на каждый запуск: миграции применяются с нуля
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement st = connection.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            st.execute("CREATE SCHEMA " + SCHEMA);
+        }
+
+        // Аргументы командной строки, а не properties(): те лишь значения по умолчанию под application.yml
+        context = new SpringApplicationBuilder(BankCardsApplication.class)
+                .profiles("prod")
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA,
+                        "--spring.datasource.username=" + user,
+                        "--spring.datasource.password=" + password,
+                        "--spring.liquibase.default-schema=" + SCHEMA,
+                        "--application.sql-log.enabled=false");
+        transferService = context.getBean(TransferService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        User owner = context.getBean(UserRepository.class).save(User.builder()
+                .username("batchbench")
+                .email("batchbench@example.com")
+                .password("encoded-password")
+                .firstName("Batch")
+                .lastName("Bench")
+                .role(Role.USER)
+                .isActive(true)
+                .build());
+        List<CardDTO> cards = context.getBean(CardService.class).issueCards(BulkCardIssueRequest.builder()
+                .userIds(List.of(owner.getId()))
+                .cardsPerUser(2)
+                .expiryDate(LocalDate.now().plusYears(4))
+                .initialBalance(new BigDecimal("1000000.00"))
+                .build()).getCards();
+
+        // Переводы туда и обратно: баланс после операции не меняется
+        requests = new ArrayList<>(transfers);
+        for (int i = 0; i < transfers; i++) {
+            CardDTO from = cards.get(i % 2);
+            CardDTO to = cards.get((i + 1) % 2);
+            requests.add(TransferRequest.builder()
+                    .fromCardId(from.getId())
+                    .toCardId(to.getId())
+                    .amount(BigDecimal.ONE)
+                    .description("bench")
+                    .build());
+        }
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(owner.getUsername(), null, owner.getAuthorities()));
+    }
+
+    // Таблица не растет между итерациями, иначе поздние итерации медленнее из-за индексов
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE transfers");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public int batch() {
+        return transferService.createTransfers(requests).getSucceeded();
+    }
+
+    @Benchmark
+    public void single(Blackhole blackhole) {
+        for (TransferRequest request : requests) {
+            blackhole.consume(transferService.createTransfer(request));
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
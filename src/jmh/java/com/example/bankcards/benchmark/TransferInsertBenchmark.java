@@ -0,0 +1,163 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Transfer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вставка переводов на PostgreSQL так, как ее выполняет Hibernate: до - IDENTITY, один INSERT ... RETURNING id
+ * на строку; после - id блоками из sequence (pooled-lo, шаг 50) и JDBC batch по 50 строк, с reWriteBatchedInserts
+ * и без. Результат - строк в секунду; одна операция = 1000 строк в одной транзакции.
+ * <p>
+ * Запуск: BENCH_DB_URL=jdbc:postgresql://localhost:5432/TESTDB BENCH_DB_USER=... BENCH_DB_PASSWORD=...
+ * mvn -P jmh -Djmh.includes=TransferInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferInsertBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int BATCH_SIZE = Transfer.ID_ALLOCATION_SIZE; // и hibernate.jdbc.batch_size в профиле prod
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transfers (from_card_id, to_card_id, amount, transfer_date, status, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_WITH_ID_SQL =
+            "INSERT INTO transfers (id, from_card_id, to_card_id, amount, transfer_date, status, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"IDENTITY", "SEQUENCE_BATCH"})
+    public String ids;
+
+    @Param({"false", "true"})
+    public boolean reWriteBatchedInserts;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private PreparedStatement nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", env("BENCH_DB_USER", "postgres"));
+        properties.setProperty("password", env("BENCH_DB_PASSWORD", "mydhuua"));
+        properties.setProperty("reWriteBatchedInserts", String.valueOf(reWriteBatchedInserts));
+        connection = DriverManager.getConnection(env("BENCH_DB_URL", "jdbc:postgresql://localhost:5432/TESTDB"),
+                properties);
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE SCHEMA IF NOT EXISTS bench_inserts");
+            st.execute("SET search_path TO bench_inserts");
+            st.execute("CREATE TABLE IF NOT EXISTS transfers (" +
+                    "id BIGSERIAL PRIMARY KEY, from_card_id BIGINT NOT NULL, to_card_id BIGINT NOT NULL, " +
+                    "amount DECIMAL(15, 2) NOT NULL, transfer_date TIMESTAMP NOT NULL, status VARCHAR(20) NOT NULL, " +
+                    "description VARCHAR(500), user_id BIGINT NOT NULL, idempotency_key VARCHAR(100))");
+            st.execute("ALTER SEQUENCE transfers_id_seq INCREMENT BY " + BATCH_SIZE);
+        }
+
+        connection.setAutoCommit(false);
+        if ("IDENTITY".equals(ids)) {
+            insert = connection.prepareStatement(INSERT_SQL, new String[]{"id"});
+        } else {
+            insert = connection.prepareStatement(INSERT_WITH_ID_SQL);
+            nextId = connection.prepareStatement("SELECT nextval('transfers_id_seq')");
+        }
+    }
+
+    // Таблица не растет между итерациями, иначе поздние итерации медленнее из-за индекса
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("TRUNCATE transfers");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long insertTransfers() throws SQLException {
+        long lastId = "IDENTITY".equals(ids) ? insertWithIdentity() : insertWithSequenceBatches();
+        connection.commit();
+        return lastId;
+    }
+
+    private long insertWithIdentity() throws SQLException {
+        long lastId = 0;
+        for (int i = 0; i < ROWS; i++) {
+            setRow(insert, 1, i);
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                lastId = keys.getLong(1);
+            }
+        }
+        return lastId;
+    }
+
+    private long insertWithSequenceBatches() throws SQLException {
+        long id = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (i % BATCH_SIZE == 0) {
+                try (ResultSet rs = nextId.executeQuery()) {
+                    rs.next();
+                    id = rs.getLong(1);
+                }
+            }
+            insert.setLong(1, id++);
+            setRow(insert, 2, i);
+            insert.addBatch();
+            if ((i + 1) % BATCH_SIZE == 0) {
+                insert.executeBatch();
+            }
+        }
+        insert.executeBatch();
+        return id - 1;
+    }
+
+    private void setRow(PreparedStatement statement, int firstIndex, int row) throws SQLException {
+        statement.setLong(firstIndex, row % 100 + 1);
+        statement.setLong(firstIndex + 1, (row + 1) % 100 + 1);
+        statement.setBigDecimal(firstIndex + 2, BigDecimal.TEN);
+        statement.setTimestamp(firstIndex + 3, new Timestamp(System.currentTimeMillis()));
+        statement.setString(firstIndex + 4, "COMPLETED");
+        statement.setLong(firstIndex + 5, row % 10 + 1);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.config.JacksonConfig;
+import com.example.bankcards.dto.PageResponse;
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.entity.TransferStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Сериализация страницы переводов тем же ObjectMapper, что отдает ответы контроллеров (JacksonConfig):
+ * GET /api/transfers/my и история карты. serializePage - прежний ответ (PageImpl), serializePageResponse -
+ * текущий (PageResponse). INDENTED - прежний вывод (INDENT_OUTPUT), COMPACT - профиль prod
+ * без Blackbird, BLACKBIRD - профиль prod. Размер ответа, с gzip и без, - счетчики bytes и gzipBytes
+ * в результатах JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransferPageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"INDENTED", "COMPACT", "BLACKBIRD"})
+    public String mapper;
+
+    private ObjectMapper objectMapper;
+    private Page<TransferDTO> page;
+    private PageResponse<TransferDTO> pageResponse;
+    private int pageGzipBytes;
+    private int pageResponseGzipBytes;
+
+    /**
+     * Размер ответа в байтах: значение выставляется каждым вызовом, JMH выводит его рядом со временем
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResponseSize {
+        public long bytes;
+        public long gzipBytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (mapper) {
+            case "INDENTED" -> new JacksonConfig().objectMapper(true, false);
+            case "COMPACT" -> new JacksonConfig().objectMapper(false, false);
+            default -> new JacksonConfig().objectMapper(false, true);
+        };
+
+        List<TransferDTO> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(TransferDTO.builder()
+                    .id((long) i)
+                    .fromCardMasked("**** **** **** 0366")
+                    .toCardMasked("**** **** **** 2832")
+                    .amount(new BigDecimal("125.50"))
+                    .transferDate(LocalDateTime.now().minusMinutes(i))
+                    .status(TransferStatus.COMPLETED)
+                    .description("Transfer " + i)
+                    .build());
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+        pageResponse = PageResponse.of(page);
+
+        // gzip считается один раз при настройке, чтобы не входить во время сериализации
+        pageGzipBytes = gzip(objectMapper.writeValueAsBytes(page)).length;
+        pageResponseGzipBytes = gzip(objectMapper.writeValueAsBytes(pageResponse)).length;
+    }
+
+    @Benchmark
+    public byte[] serializePage(ResponseSize size) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(page);
+        size.bytes = json.length;
+        size.gzipBytes = pageGzipBytes;
+        return json;
+    }
+
+    @Benchmark
+    public byte[] serializePageResponse(ResponseSize size) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(pageResponse);
+        size.bytes = json.length;
+        size.gzipBytes = pageResponseGzipBytes;
+        return json;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
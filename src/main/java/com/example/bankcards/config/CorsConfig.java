@@ -29,6 +29,7 @@ public class CorsConfig {
         configuration.setAllowedHeaders(Arrays.asList(
                 "Authorization",
                 "Content-Type",
+                "Idempotency-Key",
                 "Accept",
                 "X-Requested-With",
                 "Origin",
@@ -1,29 +1,51 @@
 package com.example.bankcards.config;
 
+import com.example.bankcards.dto.CardDTO;
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.dto.UserDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.util.List;
+
 @Configuration
 public class JacksonConfig {
 
+    // DTO в ответах со страницами: их сериализаторы строятся при старте
+    private static final List<Class<?>> RESPONSE_TYPES = List.of(CardDTO.class, TransferDTO.class, UserDTO.class);
+
     @Bean
     @Primary
-    public ObjectMapper objectMapper() {
+    public ObjectMapper objectMapper(@Value("${application.json.indent-output:false}") boolean indentOutput,
+                                     @Value("${application.json.blackbird:true}") boolean blackbird) {
         ObjectMapper mapper = new ObjectMapper();
-        
+
         // Регистрируем модуль для работы с Java 8 Date/Time API
         mapper.registerModule(new JavaTimeModule());
-        
+
+        // Геттеры DTO вызываются через сгенерированные лямбды вместо reflection
+        if (blackbird) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+
         // Отключаем запись дат как timestamps
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
-        // Настройки для красивого вывода JSON (можно убрать в production)
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
-        
+
+        // Форматированный JSON только для разработки; в профиле prod ответы компактные
+        mapper.configure(SerializationFeature.INDENT_OUTPUT, indentOutput);
+
+        // writerFor строит и кэширует сериализатор типа в ObjectMapper; конвертер Spring MVC использует
+        // тот же кэш, поэтому первые запросы к спискам не платят за интроспекцию DTO
+        for (Class<?> type : RESPONSE_TYPES) {
+            mapper.writerFor(type);
+        }
+
         return mapper;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Репозитории подключаются отдельной конфигурацией, а не на классе приложения:
+ * срезы @WebMvcTest не поднимают JPA и не требуют entityManagerFactory.
+ */
+@Configuration
+@EnableJpaRepositories(basePackages = "com.example.bankcards.repository")
+public class JpaConfig {
+}
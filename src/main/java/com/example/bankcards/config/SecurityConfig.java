@@ -46,8 +46,12 @@ public class SecurityConfig {
                     "/swagger-ui.html",
                     "/swagger-ui/index.html",
                     "/v3/api-docs/**",
-                    "/api-docs/**"
+                    "/api-docs/**",
+                    "/actuator/health"
                 ).permitAll()
+                // Остальные endpoints actuator, включая /actuator/prometheus: метрики раскрывают
+                // объемы переводов и пути API, scrape идет с токеном администратора
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // Админ
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 // Пользователь и админ
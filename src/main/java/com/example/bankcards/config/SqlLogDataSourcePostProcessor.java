@@ -0,0 +1,43 @@
+package com.example.bankcards.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Оборачивает DataSource для журнала медленных запросов (SqlLogListener).
+ * Включается свойством application.sql-log.enabled (профиль prod); вместо show-sql, который пишет
+ * каждый запрос синхронно. Пул остается доступен через unwrap, метрики Hikari не теряются.
+ */
+@Component
+public class SqlLogDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final boolean enabled;
+    private final Duration slowThreshold;
+    private final double sampleRate;
+
+    public SqlLogDataSourcePostProcessor(
+            @Value("${application.sql-log.enabled}") boolean enabled,
+            @Value("${application.sql-log.slow-threshold}") Duration slowThreshold,
+            @Value("${application.sql-log.sample-rate}") double sampleRate) {
+        this.enabled = enabled;
+        this.slowThreshold = slowThreshold;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new SqlLogListener(slowThreshold.toMillis(), sampleRate))
+                .build();
+    }
+}
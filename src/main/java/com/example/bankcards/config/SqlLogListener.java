@@ -0,0 +1,74 @@
+package com.example.bankcards.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Журнал SQL для production: медленные запросы (logger bank.sql.slow, WARN) и выборка из остальных
+ * (logger bank.sql.sample, INFO). Пишутся текст запроса, число параметров, размер batch и время;
+ * значения параметров не пишутся - в них данные карт и пользователей.
+ */
+public class SqlLogListener implements QueryExecutionListener {
+
+    private static final Logger SLOW_LOG = LoggerFactory.getLogger("bank.sql.slow");
+    private static final Logger SAMPLE_LOG = LoggerFactory.getLogger("bank.sql.sample");
+
+    private final long slowThresholdMs;
+    private final double sampleRate;
+
+    public SqlLogListener(long slowThresholdMs, double sampleRate) {
+        this.slowThresholdMs = slowThresholdMs;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsedMs = execInfo.getElapsedTime();
+        if (elapsedMs >= slowThresholdMs) {
+            if (SLOW_LOG.isWarnEnabled()) {
+                SLOW_LOG.warn("Slow query: {} ms, {} params, batch {}, success {}: {}", elapsedMs,
+                        parameterCount(queryInfoList), execInfo.getBatchSize(), execInfo.isSuccess(),
+                        sql(queryInfoList));
+            }
+        } else if (sampleRate > 0 && SAMPLE_LOG.isInfoEnabled()
+                && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            SAMPLE_LOG.info("Query: {} ms, {} params, batch {}: {}", elapsedMs,
+                    parameterCount(queryInfoList), execInfo.getBatchSize(), sql(queryInfoList));
+        }
+    }
+
+    // Параметры одной строки: у batch все строки одного запроса связывают одинаковое число параметров
+    private static int parameterCount(List<QueryInfo> queryInfoList) {
+        int count = 0;
+        for (QueryInfo queryInfo : queryInfoList) {
+            if (!queryInfo.getParametersList().isEmpty()) {
+                count += queryInfo.getParametersList().get(0).size();
+            }
+        }
+        return count;
+    }
+
+    private static String sql(List<QueryInfo> queryInfoList) {
+        if (queryInfoList.size() == 1) {
+            return queryInfoList.get(0).getQuery();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (QueryInfo queryInfo : queryInfoList) {
+            if (!sb.isEmpty()) {
+                sb.append("; ");
+            }
+            sb.append(queryInfo.getQuery());
+        }
+        return sb.toString();
+    }
+}
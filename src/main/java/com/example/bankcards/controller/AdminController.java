@@ -1,22 +1,30 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BulkCardIssueRequest;
+import com.example.bankcards.dto.BulkCardIssueResponse;
+import com.example.bankcards.dto.CacheStatsDTO;
 import com.example.bankcards.dto.CardDTO;
+import com.example.bankcards.dto.DashboardStatsDTO;
+import com.example.bankcards.dto.ExpirySweepDTO;
+import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.UserDTO;
+import com.example.bankcards.service.CardExpirySweeper;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.DashboardStatsStore;
 import com.example.bankcards.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -29,29 +37,58 @@ public class AdminController {
 
     private final UserService userService;
     private final CardService cardService;
+    private final DashboardStatsStore dashboardStatsStore;
+    private final CardExpirySweeper cardExpirySweeper;
 
     @GetMapping("/dashboard")
     @Operation(summary = "Get admin dashboard statistics")
-    public ResponseEntity<Map<String, Object>> getDashboardStats() {
-        // Здесь можно добавить логику для сбора статистики
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("message", "Admin dashboard");
-        stats.put("info", "Statistics will be implemented here");
-        return ResponseEntity.ok(stats);
+    public ResponseEntity<DashboardStatsDTO> getDashboardStats() {
+        // Статистика из памяти, без сканирования таблиц (см. DashboardStatsStore)
+        return ResponseEntity.ok(dashboardStatsStore.getStats());
+    }
+
+    @GetMapping("/cache/current-user")
+    @Operation(summary = "Get current-user cache hit/miss counters")
+    public ResponseEntity<CacheStatsDTO> getCurrentUserCacheStats() {
+        return ResponseEntity.ok(userService.getCurrentUserCacheStats());
     }
 
     @GetMapping("/users")
-    @Operation(summary = "Get all users with pagination")
-    public ResponseEntity<Page<UserDTO>> getAllUsers(
-            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(userService.getAllUsers(pageable));
+    @Operation(summary = "Get all users with pagination",
+            description = "withTotal=false skips the count query; the response then has only hasNext")
+    public ResponseEntity<PageResponse<UserDTO>> getAllUsers(
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ResponseEntity.ok(PageResponse.of(userService.getAllUsers(pageable, withTotal)));
     }
 
     @GetMapping("/cards")
-    @Operation(summary = "Get all cards with pagination")
-    public ResponseEntity<Page<CardDTO>> getAllCards(
-            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(cardService.getAllCards(pageable));
+    @Operation(summary = "Get all cards with pagination",
+            description = "withTotal=false skips the count query; the response then has only hasNext")
+    public ResponseEntity<PageResponse<CardDTO>> getAllCards(
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ResponseEntity.ok(PageResponse.of(cardService.getAllCards(pageable, withTotal)));
+    }
+
+    @PostMapping("/cards/bulk")
+    @Operation(summary = "Issue cards in bulk",
+            description = "Issues cardsPerUser new cards with generated numbers to each of the given users")
+    public ResponseEntity<BulkCardIssueResponse> issueCards(@Valid @RequestBody BulkCardIssueRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(cardService.issueCards(request));
+    }
+
+    @GetMapping("/cards/expiry-sweep")
+    @Operation(summary = "Get the result of the last card expiry sweep")
+    public ResponseEntity<ExpirySweepDTO> getLastExpirySweep() {
+        ExpirySweepDTO lastRun = cardExpirySweeper.getLastRun();
+        return lastRun != null ? ResponseEntity.ok(lastRun) : ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/cards/expiry-sweep")
+    @Operation(summary = "Expire cards past their expiry date now")
+    public ResponseEntity<ExpirySweepDTO> runExpirySweep() {
+        return ResponseEntity.ok(cardExpirySweeper.sweep());
     }
 
     @PutMapping("/users/{id}/role")
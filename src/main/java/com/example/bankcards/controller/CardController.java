@@ -2,6 +2,7 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardCreateRequest;
 import com.example.bankcards.dto.CardDTO;
+import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.service.CardService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,7 +10,6 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
@@ -44,26 +44,32 @@ public class CardController {
     }
 
     @GetMapping("/my")
-    @Operation(summary = "Get current user's cards with pagination")
-    public ResponseEntity<Page<CardDTO>> getMyCards(
-            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(cardService.getUserCards(pageable));
+    @Operation(summary = "Get current user's cards with pagination",
+            description = "withTotal=false skips the count query; the response then has only hasNext")
+    public ResponseEntity<PageResponse<CardDTO>> getMyCards(
+            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ResponseEntity.ok(PageResponse.of(cardService.getUserCards(pageable, withTotal)));
     }
 
     @GetMapping("/my/status/{status}")
-    @Operation(summary = "Get current user's cards filtered by status")
-    public ResponseEntity<Page<CardDTO>> getMyCardsByStatus(
+    @Operation(summary = "Get current user's cards filtered by status",
+            description = "withTotal=false skips the count query; the response then has only hasNext")
+    public ResponseEntity<PageResponse<CardDTO>> getMyCardsByStatus(
             @PathVariable CardStatus status,
-            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(cardService.getUserCardsByStatus(status, pageable));
+            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ResponseEntity.ok(PageResponse.of(cardService.getUserCardsByStatus(status, pageable, withTotal)));
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Get all cards with pagination (Admin only)")
-    public ResponseEntity<Page<CardDTO>> getAllCards(
-            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(cardService.getAllCards(pageable));
+    @Operation(summary = "Get all cards with pagination (Admin only)",
+            description = "withTotal=false skips the count query; the response then has only hasNext")
+    public ResponseEntity<PageResponse<CardDTO>> getAllCards(
+            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ResponseEntity.ok(PageResponse.of(cardService.getAllCards(pageable, withTotal)));
     }
 
     @GetMapping("/user/{userId}")
@@ -1,23 +1,31 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.TransferDTO;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.service.TransferExporter;
 import com.example.bankcards.service.TransferService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -31,9 +39,21 @@ public class TransferController {
     private final TransferService transferService;
 
     @PostMapping
-    @Operation(summary = "Create a transfer between own cards")
-    public ResponseEntity<TransferDTO> createTransfer(@Valid @RequestBody TransferRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(transferService.createTransfer(request));
+    @Operation(summary = "Create a transfer between own cards",
+            description = "Repeating a request with the same Idempotency-Key returns the original transfer; "
+                    + "reusing the key with different cards or amount is rejected with 422")
+    public ResponseEntity<TransferDTO> createTransfer(
+            @Valid @RequestBody TransferRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(transferService.createTransfer(request, idempotencyKey));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create many transfers between own cards in one transaction",
+            description = "Each transfer is validated separately; the response reports success or failure per item")
+    public ResponseEntity<BatchTransferResponse> createTransfers(@Valid @RequestBody BatchTransferRequest request) {
+        return ResponseEntity.ok(transferService.createTransfers(request.getTransfers()));
     }
 
     @GetMapping("/{id}")
@@ -43,18 +63,41 @@ public class TransferController {
     }
 
     @GetMapping("/my")
-    @Operation(summary = "Get current user's transfers with pagination")
-    public ResponseEntity<Page<TransferDTO>> getMyTransfers(
-            @PageableDefault(size = 10, sort = "transferDate", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(transferService.getUserTransfers(pageable));
+    @Operation(summary = "Get current user's transfers with pagination",
+            description = "withTotal=false skips the count query; the response then has only hasNext")
+    public ResponseEntity<PageResponse<TransferDTO>> getMyTransfers(
+            @PageableDefault(size = 10, sort = "transferDate", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ResponseEntity.ok(PageResponse.of(transferService.getUserTransfers(pageable, withTotal)));
+    }
+
+    @GetMapping("/my/cursor")
+    @Operation(summary = "Get current user's transfers with cursor pagination",
+            description = "Newest first; pass nextCursor from the previous response to get the next page")
+    public ResponseEntity<CursorPage<TransferDTO>> getMyTransfersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(transferService.getUserTransfers(cursor, size));
     }
 
     @GetMapping("/card/{cardId}")
-    @Operation(summary = "Get transfers for a specific card")
-    public ResponseEntity<Page<TransferDTO>> getTransfersByCardId(
+    @Operation(summary = "Get transfers for a specific card",
+            description = "withTotal=false skips the count query; the response then has only hasNext")
+    public ResponseEntity<PageResponse<TransferDTO>> getTransfersByCardId(
             @PathVariable Long cardId,
-            @PageableDefault(size = 10, sort = "transferDate", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(transferService.getTransfersByCardId(cardId, pageable));
+            @PageableDefault(size = 10, sort = "transferDate", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ResponseEntity.ok(PageResponse.of(transferService.getTransfersByCardId(cardId, pageable, withTotal)));
+    }
+
+    @GetMapping("/card/{cardId}/cursor")
+    @Operation(summary = "Get transfers for a specific card with cursor pagination",
+            description = "Newest first; pass nextCursor from the previous response to get the next page")
+    public ResponseEntity<CursorPage<TransferDTO>> getTransfersByCardIdByCursor(
+            @PathVariable Long cardId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(transferService.getTransfersByCardId(cardId, cursor, size));
     }
 
     @GetMapping("/date-range")
@@ -65,6 +108,27 @@ public class TransferController {
         return ResponseEntity.ok(transferService.getTransfersByDateRange(startDate, endDate));
     }
 
+    @GetMapping("/date-range/export")
+    @Operation(summary = "Export transfers within a date range as NDJSON or CSV",
+            description = "Streams rows as they are read from the database; memory use does not depend on the range")
+    public ResponseEntity<StreamingResponseBody> exportTransfersByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "NDJSON") TransferExporter.Format format) {
+        TransferExporter.Export export = transferService.exportTransfersByDateRange(startDate, endDate, format);
+        StreamingResponseBody body = export::writeTo;
+
+        if (format == TransferExporter.Format.CSV) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transfers.csv\"")
+                    .body(body);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/status/{status}")
     @Operation(summary = "Get transfers by status")
     public ResponseEntity<List<TransferDTO>> getTransfersByStatus(@PathVariable TransferStatus status) {
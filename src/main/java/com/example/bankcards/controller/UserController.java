@@ -1,12 +1,12 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.UserDTO;
 import com.example.bankcards.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
@@ -40,10 +40,12 @@ public class UserController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Get all users with pagination (Admin only)")
-    public ResponseEntity<Page<UserDTO>> getAllUsers(
-            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(userService.getAllUsers(pageable));
+    @Operation(summary = "Get all users with pagination (Admin only)",
+            description = "withTotal=false skips the count query; the response then has only hasNext")
+    public ResponseEntity<PageResponse<UserDTO>> getAllUsers(
+            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ResponseEntity.ok(PageResponse.of(userService.getAllUsers(pageable, withTotal)));
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResult {
+
+    private int index; // позиция перевода в запросе
+    private boolean success;
+    private TransferDTO transfer; // заполнен при успехе
+    private String error; // причина отказа
+}
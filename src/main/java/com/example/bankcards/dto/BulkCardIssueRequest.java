@@ -0,0 +1,38 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCardIssueRequest {
+
+    @NotEmpty(message = "User IDs are required")
+    @Size(max = 10000, message = "No more than 10000 users per request")
+    private List<@NotNull Long> userIds;
+
+    @NotNull(message = "Cards per user is required")
+    @Min(value = 1, message = "At least one card per user")
+    @Max(value = 100, message = "No more than 100 cards per user")
+    private Integer cardsPerUser;
+
+    @NotNull(message = "Expiry date is required")
+    private LocalDate expiryDate;
+
+    @DecimalMin(value = "0.00", message = "Initial balance must not be negative")
+    private BigDecimal initialBalance;
+}
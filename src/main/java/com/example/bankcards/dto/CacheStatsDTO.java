@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+
+    private long requestHits; // повторные обращения в рамках одного запроса
+    private long cacheHits;
+    private long misses; // запросы в БД
+    private long evictions;
+    private long size;
+}
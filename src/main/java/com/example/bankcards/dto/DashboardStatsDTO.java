@@ -0,0 +1,27 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardStatsDTO {
+
+    private long totalUsers;
+    private long activeCards;
+    private long blockedCards;
+    private long expiredCards;
+    private BigDecimal totalBalance; // сумма балансов всех карт
+    private List<TransferVolumeDTO> transfersByHour; // за последние 24 часа
+    private List<TransferVolumeDTO> transfersByDay; // за период хранения почасовых данных
+    private List<TopSenderDTO> topSenders; // по сумме переводов за все время
+    private LocalDateTime reconciledAt; // последняя сверка с БД
+}
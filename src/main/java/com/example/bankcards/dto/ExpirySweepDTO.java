@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpirySweepDTO {
+
+    private long expiredCards; // карт переведено в EXPIRED
+    private int batches; // выполнено UPDATE
+    private long durationMillis;
+    private LocalDateTime finishedAt;
+}
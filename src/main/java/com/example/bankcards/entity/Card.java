@@ -18,13 +18,24 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Card {
 
+    // id выдаются блоками: одно обращение к cards_id_seq на ID_ALLOCATION_SIZE вставок (pooled-lo).
+    // Шаг sequence в БД (миграция 012) должен совпадать с allocationSize
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_id_seq")
+    @SequenceGenerator(name = "cards_id_seq", sequenceName = "cards_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    @Column(name = "card_number", nullable = false, unique = true)
+    @Column(name = "card_number", nullable = false)
     private String cardNumber; // зашифрованный номер карты
 
+    @Column(name = "card_number_hash", nullable = false, unique = true, length = 64)
+    private String cardNumberHash; // HMAC-SHA256 номера карты, для поиска и проверки уникальности
+
+    @Column(name = "card_last4", nullable = false, length = 4)
+    private String cardLast4; // последние 4 цифры в открытом виде, для маски без расшифровки
+
     @Column(name = "card_holder", nullable = false)
     private String cardHolder;
 
@@ -66,19 +77,15 @@ public class Card {
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
-        
-        // Проверяем, не истек ли срок карты
-        if (expiryDate != null && expiryDate.isBefore(LocalDate.now())) {
-            status = CardStatus.EXPIRED;
-        }
     }
 
     public boolean isActive() {
         return status == CardStatus.ACTIVE;
     }
 
+    // CardExpirySweeper сохраняет статус EXPIRED после полуночи; до его прохода срок проверяется по дате
     public boolean isExpired() {
-        return status == CardStatus.EXPIRED || 
+        return status == CardStatus.EXPIRED ||
                (expiryDate != null && expiryDate.isBefore(LocalDate.now()));
     }
 }
\ No newline at end of file
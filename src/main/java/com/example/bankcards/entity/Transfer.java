@@ -10,15 +10,26 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transfers")
+@Table(name = "transfers", uniqueConstraints = @UniqueConstraint(
+        name = "uk_transfers_user_idempotency_key", columnNames = {"user_id", "idempotency_key"}))
+@NamedEntityGraph(name = Transfer.WITH_CARDS, attributeNodes = {
+        @NamedAttributeNode("fromCard"), @NamedAttributeNode("toCard")})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transfer {
 
+    // Граф для списков переводов: карты нужны для маски номера в TransferDTO
+    public static final String WITH_CARDS = "Transfer.withCards";
+
+    // id выдаются блоками: одно обращение к transfers_id_seq на ID_ALLOCATION_SIZE вставок (pooled-lo).
+    // Шаг sequence в БД (миграция 012) должен совпадать с allocationSize
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfers_id_seq")
+    @SequenceGenerator(name = "transfers_id_seq", sequenceName = "transfers_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -46,6 +57,9 @@ public class Transfer {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey; // ключ из заголовка Idempotency-Key
+
     @PrePersist
     protected void onCreate() {
         transferDate = LocalDateTime.now();
@@ -22,8 +22,13 @@ import java.util.Set;
 @AllArgsConstructor
 public class User implements UserDetails {
 
+    // id выдаются блоками: одно обращение к users_id_seq на ID_ALLOCATION_SIZE вставок (pooled-lo).
+    // Шаг sequence в БД (миграция 012) должен совпадать с allocationSize
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -48,6 +53,9 @@ public class User implements UserDetails {
     @Column(name = "is_active")
     private boolean isActive = true;
 
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion; // увеличивается, когда выданные токены нужно отозвать
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -1,5 +1,6 @@
 package com.example.bankcards.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,14 +13,25 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    // Значения тега resource: корневые пути контроллеров, все остальное - other
+    private static final Set<String> RESOURCES = Set.of("cards", "transfers", "users", "auth", "admin");
+
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(CustomException.class)
     public ResponseEntity<ErrorResponse> handleCustomException(
             CustomException ex, 
             HttpServletRequest request) {
+        countError(ex, request);
         
         ErrorResponse error = new ErrorResponse(
             ex.getStatus().value(),
@@ -35,6 +47,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleResourceNotFound(
             ResourceNotFoundException ex, 
             HttpServletRequest request) {
+        countError(ex, request);
         
         ErrorResponse error = new ErrorResponse(
             HttpStatus.NOT_FOUND.value(),
@@ -50,6 +63,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleBadRequest(
             BadRequestException ex, 
             HttpServletRequest request) {
+        countError(ex, request);
         
         ErrorResponse error = new ErrorResponse(
             HttpStatus.BAD_REQUEST.value(),
@@ -65,6 +79,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleUnauthorized(
             UnauthorizedException ex, 
             HttpServletRequest request) {
+        countError(ex, request);
         
         ErrorResponse error = new ErrorResponse(
             HttpStatus.UNAUTHORIZED.value(),
@@ -80,6 +95,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleInsufficientFunds(
             InsufficientFundsException ex, 
             HttpServletRequest request) {
+        countError(ex, request);
         
         ErrorResponse error = new ErrorResponse(
             HttpStatus.BAD_REQUEST.value(),
@@ -95,6 +111,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleBadCredentials(
             BadCredentialsException ex, 
             HttpServletRequest request) {
+        countError(ex, request);
         
         ErrorResponse error = new ErrorResponse(
             HttpStatus.UNAUTHORIZED.value(),
@@ -110,6 +127,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleAccessDenied(
             AccessDeniedException ex, 
             HttpServletRequest request) {
+        countError(ex, request);
         
         ErrorResponse error = new ErrorResponse(
             HttpStatus.FORBIDDEN.value(),
@@ -125,6 +143,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleValidationErrors(
             MethodArgumentNotValidException ex,
             HttpServletRequest request) {
+        countError(ex, request);
         
         Map<String, String> validationErrors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach(error -> {
@@ -149,6 +168,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleGenericException(
             Exception ex, 
             HttpServletRequest request) {
+        countError(ex, request);
         
         ErrorResponse error = new ErrorResponse(
             HttpStatus.INTERNAL_SERVER_ERROR.value(),
@@ -159,4 +179,24 @@ public class GlobalExceptionHandler {
         
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
-}
\ No newline at end of file
+
+    /**
+     * Считает ошибки по типу исключения и ресурсу (/api/transfers/... -> transfers),
+     * например неудачные переводы: bank_api_errors_total{resource="transfers"}
+     */
+    private void countError(Exception ex, HttpServletRequest request) {
+        meterRegistry.counter("bank.api.errors",
+                "exception", ex.getClass().getSimpleName(),
+                "resource", resourceOf(request.getRequestURI())).increment();
+    }
+
+    // Полный URI содержит id, а первый сегмент приходит от клиента (/api/<что угодно>),
+    // поэтому тег берется только из фиксированного набора: число временных рядов ограничено
+    private String resourceOf(String uri) {
+        String[] segments = uri.split("/", 4);
+        if (segments.length < 3 || !"api".equals(segments[1]) || !RESOURCES.contains(segments[2])) {
+            return "other";
+        }
+        return segments[2];
+    }
+}
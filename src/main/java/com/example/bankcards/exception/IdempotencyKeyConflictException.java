@@ -0,0 +1,13 @@
+package com.example.bankcards.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Ключ Idempotency-Key уже использован для перевода с другими картами или суммой
+ */
+public class IdempotencyKeyConflictException extends CustomException {
+
+    public IdempotencyKeyConflictException() {
+        super("Idempotency-Key was already used for a different transfer", HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+}
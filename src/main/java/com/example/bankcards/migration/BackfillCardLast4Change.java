@@ -0,0 +1,17 @@
+package com.example.bankcards.migration;
+
+/**
+ * Заполняет cards.card_last4 для существующих карт
+ */
+public class BackfillCardLast4Change extends CardBackfillChange {
+
+    @Override
+    protected String getColumnName() {
+        return "card_last4";
+    }
+
+    @Override
+    protected String computeValue(String cardNumber) {
+        return cardNumber.substring(cardNumber.length() - 4);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.migration;
+
+/**
+ * Заполняет cards.card_number_hash для существующих карт.
+ * Каждая порция коммитится отдельно, поэтому таблица cards не блокируется на время миграции,
+ * а карты, созданные приложением во время заполнения, уже имеют хеш и пропускаются.
+ */
+public class BackfillCardNumberHashChange extends CardBackfillChange {
+
+    @Override
+    protected String getColumnName() {
+        return "card_number_hash";
+    }
+
+    @Override
+    protected String computeValue(String cardNumber) {
+        return encryptionUtil.hashCardNumber(cardNumber);
+    }
+
+    @Override
+    protected boolean isCommitEachBatch() {
+        return true;
+    }
+}
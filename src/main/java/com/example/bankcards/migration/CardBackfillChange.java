@@ -0,0 +1,100 @@
+package com.example.bankcards.migration;
+
+import com.example.bankcards.util.EncryptionUtil;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Базовый класс для заполнения колонки cards, значение которой вычисляется из номера карты.
+ * Номер хранится зашифрованным, поэтому сделать это чистым SQL нельзя:
+ * строки читаются порциями по id, номер расшифровывается и обновляется batch-ем.
+ */
+public abstract class CardBackfillChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 500;
+
+    protected final EncryptionUtil encryptionUtil = new EncryptionUtil();
+
+    private int updatedRows;
+
+    /**
+     * Колонка, которая заполняется (строки, где она уже не NULL, пропускаются)
+     */
+    protected abstract String getColumnName();
+
+    /**
+     * Значение колонки для расшифрованного номера карты
+     */
+    protected abstract String computeValue(String cardNumber);
+
+    /**
+     * Коммитить ли каждую порцию отдельно. Тогда блокируются только строки текущей порции,
+     * а не вся таблица до конца миграции (changeSet должен быть с runInTransaction: false).
+     */
+    protected boolean isCommitEachBatch() {
+        return false;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        String column = getColumnName();
+
+        try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, card_number FROM cards WHERE " + column + " IS NULL AND id > ? ORDER BY id LIMIT " + BATCH_SIZE);
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE cards SET " + column + " = ? WHERE id = ?")) {
+            long lastId = 0;
+            int batchRows;
+            do {
+                batchRows = 0;
+                select.setLong(1, lastId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getLong("id");
+                        update.setString(1, computeValue(encryptionUtil.decrypt(rs.getString("card_number"))));
+                        update.setLong(2, lastId);
+                        update.addBatch();
+                        batchRows++;
+                    }
+                }
+                if (batchRows > 0) {
+                    update.executeBatch();
+                    updatedRows += batchRows;
+                    if (isCommitEachBatch() && !connection.getAutoCommit()) {
+                        connection.commit();
+                    }
+                }
+            } while (batchRows == BATCH_SIZE);
+        } catch (SQLException e) {
+            throw new CustomChangeException("Error backfilling " + column, e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return getColumnName() + " backfilled for " + updatedRows + " cards";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+
+import java.util.List;
+
+public interface CardBatchRepository {
+
+    /**
+     * Вставляет карты JDBC batch-ами и проставляет им сгенерированные id.
+     * Поля status, createdAt и updatedAt должны быть заполнены заранее: @PrePersist здесь не вызывается.
+     */
+    void batchInsert(List<Card> cards);
+}
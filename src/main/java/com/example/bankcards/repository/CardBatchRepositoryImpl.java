@@ -0,0 +1,78 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CardBatchRepositoryImpl implements CardBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cards (id, card_number, card_number_hash, card_last4, card_holder, expiry_date, status, " +
+            "balance, cvv, user_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String NEXT_ID_SQL = "SELECT nextval('cards_id_seq')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<Card> cards) {
+        assignIds(cards);
+
+        // Порции ограничивают размер одного batch в памяти драйвера
+        for (int from = 0; from < cards.size(); from += BATCH_SIZE) {
+            insertBatch(cards.subList(from, Math.min(from + BATCH_SIZE, cards.size())));
+        }
+    }
+
+    // id берутся блоками из cards_id_seq так же, как их выдает Hibernate (pooled-lo): значение
+    // sequence - начало блока из Card.ID_ALLOCATION_SIZE id. Ключи не возвращаются из INSERT,
+    // поэтому драйвер может склеить batch в многострочные INSERT (reWriteBatchedInserts)
+    private void assignIds(List<Card> cards) {
+        long nextId = 0;
+        int remaining = 0;
+        for (Card card : cards) {
+            if (remaining == 0) {
+                nextId = jdbcTemplate.queryForObject(NEXT_ID_SQL, Long.class);
+                remaining = Card.ID_ALLOCATION_SIZE;
+            }
+            card.setId(nextId++);
+            remaining--;
+        }
+    }
+
+    private void insertBatch(List<Card> cards) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Card card = cards.get(i);
+                ps.setLong(1, card.getId());
+                ps.setString(2, card.getCardNumber());
+                ps.setString(3, card.getCardNumberHash());
+                ps.setString(4, card.getCardLast4());
+                ps.setString(5, card.getCardHolder());
+                ps.setDate(6, Date.valueOf(card.getExpiryDate()));
+                ps.setString(7, card.getStatus().name());
+                ps.setBigDecimal(8, card.getBalance());
+                ps.setString(9, card.getCvv());
+                ps.setLong(10, card.getOwner().getId());
+                ps.setTimestamp(11, Timestamp.valueOf(card.getCreatedAt()));
+                ps.setTimestamp(12, Timestamp.valueOf(card.getUpdatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return cards.size();
+            }
+        });
+    }
+}
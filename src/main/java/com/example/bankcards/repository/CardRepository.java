@@ -3,20 +3,28 @@ package com.example.bankcards.repository;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardBatchRepository {
 
-    Optional<Card> findByCardNumber(String cardNumber);
+    Optional<Card> findByCardNumberHash(String cardNumberHash);
 
     List<Card> findByOwner(User owner);
 
@@ -24,17 +32,83 @@ public interface CardRepository extends JpaRepository<Card, Long> {
 
     Page<Card> findByOwnerAndStatus(User owner, CardStatus status, Pageable pageable);
 
+    // Те же страницы без COUNT: читается size + 1 строка, чтобы узнать hasNext
+
+    Slice<Card> findSliceByOwner(User owner, Pageable pageable);
+
+    Slice<Card> findSliceByOwnerAndStatus(User owner, CardStatus status, Pageable pageable);
+
+    @Query("SELECT c FROM Card c")
+    Slice<Card> findAllAsSlice(Pageable pageable);
+
     @Query("SELECT c FROM Card c WHERE c.owner.id = :userId")
     List<Card> findAllByUserId(@Param("userId") Long userId);
 
     @Query("SELECT c FROM Card c WHERE c.owner.id = :userId AND c.status = :status")
     List<Card> findByUserIdAndStatus(@Param("userId") Long userId, @Param("status") CardStatus status);
 
-    boolean existsByCardNumber(String cardNumber);
+    boolean existsByCardNumberHash(String cardNumberHash);
+
+    // Какие из хешей уже заняты (проверка коллизий при массовом выпуске карт)
+    @Query("SELECT c.cardNumberHash FROM Card c WHERE c.cardNumberHash IN :hashes")
+    List<String> findExistingCardNumberHashes(@Param("hashes") Collection<String> hashes);
+
+    @Query("SELECT COUNT(c) FROM Card c WHERE c.owner.id = :userId")
+    long countByUserId(@Param("userId") Long userId);
+
+    /**
+     * Количество карт по владельцам одним запросом (для списков пользователей без загрузки карт).
+     * Владельцы без карт в результат не попадают.
+     */
+    @Query("SELECT c.owner.id AS ownerId, COUNT(c) AS cardsCount FROM Card c " +
+           "WHERE c.owner.id IN :userIds GROUP BY c.owner.id")
+    List<OwnerCardsCount> countByUserIds(@Param("userIds") Collection<Long> userIds);
 
     @Query("SELECT COUNT(c) FROM Card c WHERE c.owner.id = :userId AND c.status = 'ACTIVE'")
     long countActiveCardsByUserId(@Param("userId") Long userId);
 
+    // Количество карт и сумма балансов по статусам (сверка статистики админ-панели)
+    @Query("SELECT c.status AS status, COUNT(c) AS cardsCount, COALESCE(SUM(c.balance), 0) AS balance " +
+           "FROM Card c GROUP BY c.status")
+    List<StatusTotals> sumByStatus();
+
+    /**
+     * Переводит в EXPIRED не больше batchSize карт с истекшим сроком. Условие совпадает
+     * с предикатом частичного индекса idx_cards_expiry_pending, поэтому истекшие карты
+     * находятся без просмотра всей таблицы. Возвращает количество обновленных строк.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "UPDATE cards SET status = 'EXPIRED', updated_at = :now WHERE id IN (" +
+            "SELECT id FROM cards WHERE status <> 'EXPIRED' AND expiry_date < :today LIMIT :batchSize)")
+    int expireBatch(@Param("today") LocalDate today,
+                    @Param("now") LocalDateTime now,
+                    @Param("batchSize") int batchSize);
+
     @Query("SELECT c FROM Card c WHERE c.id = :cardId AND c.owner.id = :userId")
     Optional<Card> findByIdAndUserId(@Param("cardId") Long cardId, @Param("userId") Long userId);
+
+    /**
+     * Загружает карты владельца с блокировкой строк (SELECT ... FOR UPDATE).
+     * Чужие карты не выбираются и не блокируются, какие бы id ни прислал клиент.
+     * Строки блокируются в порядке возрастания id, поэтому параллельные
+     * переводы между одними и теми же картами не создают взаимных блокировок.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :ids AND c.owner.id = :userId ORDER BY c.id")
+    List<Card> findAllByIdAndUserIdForUpdate(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    interface OwnerCardsCount {
+        Long getOwnerId();
+
+        long getCardsCount();
+    }
+
+    interface StatusTotals {
+        CardStatus getStatus();
+
+        long getCardsCount();
+
+        BigDecimal getBalance();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Transfer;
+
+import java.util.List;
+
+public interface TransferBatchRepository {
+
+    /**
+     * Вставляет переводы одним JDBC batch и проставляет им сгенерированные id.
+     * Поля transferDate и status должны быть заполнены заранее: @PrePersist здесь не вызывается.
+     */
+    void batchInsert(List<Transfer> transfers);
+}
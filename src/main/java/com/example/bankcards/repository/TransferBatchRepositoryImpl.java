@@ -0,0 +1,67 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Transfer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TransferBatchRepositoryImpl implements TransferBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transfers (id, from_card_id, to_card_id, amount, transfer_date, status, description, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String NEXT_ID_SQL = "SELECT nextval('transfers_id_seq')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<Transfer> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        assignIds(transfers);
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Transfer transfer = transfers.get(i);
+                ps.setLong(1, transfer.getId());
+                ps.setLong(2, transfer.getFromCard().getId());
+                ps.setLong(3, transfer.getToCard().getId());
+                ps.setBigDecimal(4, transfer.getAmount());
+                ps.setTimestamp(5, Timestamp.valueOf(transfer.getTransferDate()));
+                ps.setString(6, transfer.getStatus().name());
+                ps.setString(7, transfer.getDescription());
+                ps.setLong(8, transfer.getUser().getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return transfers.size();
+            }
+        });
+    }
+
+    // id берутся блоками из transfers_id_seq так же, как их выдает Hibernate (pooled-lo): значение
+    // sequence - начало блока из Transfer.ID_ALLOCATION_SIZE id. Ключи не возвращаются из INSERT,
+    // поэтому драйвер может склеить batch в многострочные INSERT (reWriteBatchedInserts)
+    private void assignIds(List<Transfer> transfers) {
+        long nextId = 0;
+        int remaining = 0;
+        for (Transfer transfer : transfers) {
+            if (remaining == 0) {
+                nextId = jdbcTemplate.queryForObject(NEXT_ID_SQL, Long.class);
+                remaining = Transfer.ID_ALLOCATION_SIZE;
+            }
+            transfer.setId(nextId++);
+            remaining--;
+        }
+    }
+}
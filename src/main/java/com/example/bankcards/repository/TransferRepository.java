@@ -3,36 +3,122 @@ package com.example.bankcards.repository;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.TransferStatus;
 import com.example.bankcards.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface TransferRepository extends JpaRepository<Transfer, Long> {
+public interface TransferRepository extends JpaRepository<Transfer, Long>, TransferBatchRepository {
+
+    // Методы, результат которых уходит в TransferDTO, загружают обе карты тем же запросом
+    // (граф Transfer.WITH_CARDS), иначе каждая карта страницы - отдельный SELECT
+
+    @Override
+    @EntityGraph(Transfer.WITH_CARDS)
+    Optional<Transfer> findById(Long id);
 
     List<Transfer> findByUser(User user);
 
+    @EntityGraph(Transfer.WITH_CARDS)
     Page<Transfer> findByUser(User user, Pageable pageable);
 
+    // Та же страница без COUNT: читается size + 1 строка, чтобы узнать hasNext
+    @EntityGraph(Transfer.WITH_CARDS)
+    Slice<Transfer> findSliceByUser(User user, Pageable pageable);
+
+    @EntityGraph(Transfer.WITH_CARDS)
     @Query("SELECT t FROM Transfer t WHERE t.user.id = :userId")
     Page<Transfer> findAllByUserId(@Param("userId") Long userId, Pageable pageable);
 
     @Query("SELECT t FROM Transfer t WHERE t.fromCard.id = :cardId OR t.toCard.id = :cardId")
     List<Transfer> findByCardId(@Param("cardId") Long cardId);
 
-    @Query("SELECT t FROM Transfer t WHERE " +
-           "(t.fromCard.id = :cardId OR t.toCard.id = :cardId) " +
-           "AND t.user.id = :userId")
-    Page<Transfer> findByCardIdAndUserId(@Param("cardId") Long cardId, 
-                                         @Param("userId") Long userId, 
-                                         Pageable pageable);
+    /**
+     * Id переводов истории карты, новые сначала. Вместо OR по двум колонкам - UNION ALL двух выборок,
+     * каждая читается из индекса (from_card_id | to_card_id, transfer_date, id) уже упорядоченной
+     * и ограничена offset + limit строками, поэтому сортируется не больше 2 * (offset + limit) строк.
+     * ORDER BY и LIMIT стоят на самом UNION, без обертки в подзапрос: H2 кэширует результат такого
+     * подзапроса и при повторном выполнении с другим LIMIT возвращает строки прошлого вызова.
+     * Сами переводы с картами загружает findAllWithCardsByIdIn.
+     */
+    @Query(nativeQuery = true, value =
+            "(SELECT id, transfer_date FROM transfers WHERE from_card_id = :cardId AND user_id = :userId " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT :scanLimit) " +
+            "UNION ALL " +
+            "(SELECT id, transfer_date FROM transfers " +
+            "WHERE to_card_id = :cardId AND from_card_id <> :cardId AND user_id = :userId " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT :scanLimit) " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT :limit OFFSET :offset")
+    List<TransferIdRow> findCardHistory(@Param("cardId") Long cardId,
+                                        @Param("userId") Long userId,
+                                        @Param("scanLimit") long scanLimit,
+                                        @Param("limit") int limit,
+                                        @Param("offset") long offset);
+
+    /**
+     * Следующая keyset-страница истории карты после позиции (transferDate, id). Условие курсора стоит
+     * в каждой ветке UNION ALL, поэтому обе начинают чтение индекса с позиции курсора и читают
+     * не больше limit строк; первую страницу возвращает findCardHistory с offset 0.
+     */
+    @Query(nativeQuery = true, value =
+            "(SELECT id, transfer_date FROM transfers WHERE from_card_id = :cardId AND user_id = :userId " +
+            "AND (transfer_date, id) < (:transferDate, :id) " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT id, transfer_date FROM transfers " +
+            "WHERE to_card_id = :cardId AND from_card_id <> :cardId AND user_id = :userId " +
+            "AND (transfer_date, id) < (:transferDate, :id) " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT :limit) " +
+            "ORDER BY transfer_date DESC, id DESC LIMIT :limit")
+    List<TransferIdRow> findCardHistoryAfter(@Param("cardId") Long cardId,
+                                             @Param("userId") Long userId,
+                                             @Param("transferDate") LocalDateTime transferDate,
+                                             @Param("id") Long id,
+                                             @Param("limit") int limit);
+
+    @EntityGraph(Transfer.WITH_CARDS)
+    @Query("SELECT t FROM Transfer t WHERE t.id IN :ids ORDER BY t.transferDate DESC, t.id DESC")
+    List<Transfer> findAllWithCardsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(nativeQuery = true, value =
+            "SELECT (SELECT COUNT(*) FROM transfers WHERE from_card_id = :cardId AND user_id = :userId) + " +
+            "(SELECT COUNT(*) FROM transfers WHERE to_card_id = :cardId AND from_card_id <> :cardId AND user_id = :userId)")
+    long countCardHistory(@Param("cardId") Long cardId, @Param("userId") Long userId);
+
+    // Keyset-пагинация по (transfer_date, id): без COUNT и OFFSET, индекс idx_transfers_user_date_id
+
+    @EntityGraph(Transfer.WITH_CARDS)
+    @Query("SELECT t FROM Transfer t WHERE t.user.id = :userId " +
+           "ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<Transfer> findFirstSliceByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @EntityGraph(Transfer.WITH_CARDS)
+    @Query("SELECT t FROM Transfer t WHERE t.user.id = :userId " +
+           "AND (t.transferDate, t.id) < (:transferDate, :id) " +
+           "ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<Transfer> findSliceByUserIdAfter(@Param("userId") Long userId,
+                                           @Param("transferDate") LocalDateTime transferDate,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
 
+    @EntityGraph(Transfer.WITH_CARDS)
     @Query("SELECT t FROM Transfer t WHERE t.user.id = :userId AND t.status = :status")
     List<Transfer> findByUserIdAndStatus(@Param("userId") Long userId, 
                                          @Param("status") TransferStatus status);
@@ -41,9 +127,87 @@ public interface TransferRepository extends JpaRepository<Transfer, Long> {
     List<Transfer> findByDateRange(@Param("startDate") LocalDateTime startDate,
                                    @Param("endDate") LocalDateTime endDate);
 
+    @EntityGraph(Transfer.WITH_CARDS)
     @Query("SELECT t FROM Transfer t WHERE t.user.id = :userId " +
            "AND t.transferDate BETWEEN :startDate AND :endDate")
     List<Transfer> findByUserIdAndDateRange(@Param("userId") Long userId,
                                             @Param("startDate") LocalDateTime startDate,
                                             @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+
+    /**
+     * Потоковая выгрузка переводов за период для экспорта. Возвращает только нужные колонки
+     * (сущности не попадают в persistence context), строки читаются курсором порциями по fetch size.
+     * Поток нужно закрыть и читать внутри транзакции.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t.id AS id, fc.cardLast4 AS fromCardLast4, tc.cardLast4 AS toCardLast4, t.amount AS amount, " +
+           "t.transferDate AS transferDate, t.status AS status, t.description AS description " +
+           "FROM Transfer t JOIN t.fromCard fc JOIN t.toCard tc " +
+           "WHERE t.user.id = :userId AND t.transferDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY t.transferDate, t.id")
+    Stream<TransferExportRow> streamByUserIdAndDateRange(@Param("userId") Long userId,
+                                                         @Param("startDate") LocalDateTime startDate,
+                                                         @Param("endDate") LocalDateTime endDate);
+
+    // Агрегаты для сверки статистики админ-панели (DashboardStatsStore)
+
+    @Query("SELECT year(t.transferDate) AS transferYear, month(t.transferDate) AS transferMonth, " +
+           "day(t.transferDate) AS transferDay, hour(t.transferDate) AS transferHour, " +
+           "COUNT(t) AS transfersCount, SUM(t.amount) AS volume " +
+           "FROM Transfer t WHERE t.status = 'COMPLETED' AND t.transferDate >= :since " +
+           "GROUP BY year(t.transferDate), month(t.transferDate), day(t.transferDate), hour(t.transferDate)")
+    List<HourlyTotals> sumByHourSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT t.user.id AS userId, t.user.username AS username, " +
+           "COUNT(t) AS transfersCount, SUM(t.amount) AS volume " +
+           "FROM Transfer t WHERE t.status = 'COMPLETED' GROUP BY t.user.id, t.user.username")
+    List<SenderTotals> sumBySender();
+
+    @Query("SELECT t FROM Transfer t WHERE t.user.id = :userId AND t.idempotencyKey = :idempotencyKey")
+    Optional<Transfer> findByUserIdAndIdempotencyKey(@Param("userId") Long userId,
+                                                     @Param("idempotencyKey") String idempotencyKey);
+
+    interface TransferIdRow {
+        Long getId();
+    }
+
+    interface TransferExportRow {
+        Long getId();
+
+        String getFromCardLast4();
+
+        String getToCardLast4();
+
+        BigDecimal getAmount();
+
+        LocalDateTime getTransferDate();
+
+        TransferStatus getStatus();
+
+        String getDescription();
+    }
+
+    interface HourlyTotals {
+        int getTransferYear();
+
+        int getTransferMonth();
+
+        int getTransferDay();
+
+        int getTransferHour();
+
+        long getTransfersCount();
+
+        BigDecimal getVolume();
+    }
+
+    interface SenderTotals {
+        Long getUserId();
+
+        String getUsername();
+
+        long getTransfersCount();
+
+        BigDecimal getVolume();
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -18,6 +21,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
+    // Страница без COUNT: читается size + 1 строка, чтобы узнать hasNext
+    @Query("SELECT u FROM User u")
+    Slice<User> findAllAsSlice(Pageable pageable);
+
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.cards WHERE u.username = :username")
     Optional<User> findByUsernameWithCards(String username);
+
+    // Текущая версия токенов активного пользователя; пусто, если пользователь удален или деактивирован
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id AND u.isActive = true")
+    Optional<Integer> findActiveTokenVersion(@Param("id") Long id);
 }
\ No newline at end of file
@@ -1,27 +1,34 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenVersionStore tokenVersionStore;
 
     @Override
     protected void doFilterInternal(
@@ -42,12 +49,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            username = jwtService.extractUsername(jwt);
+            // Подпись и срок проверяются один раз, дальше используются готовые claims
+            Claims claims = jwtService.parseAndValidate(jwt);
+            username = claims.getSubject();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                // Пользователь берется из claims; из БД читаются только токены старого формата
+                User tokenUser = jwtService.extractUser(claims);
+                UserDetails userDetails = tokenUser != null
+                        ? tokenUser
+                        : this.userDetailsService.loadUserByUsername(username);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (jwtService.isTokenValid(claims, userDetails) && !isRevoked(tokenUser)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -59,10 +72,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            // Истекший, поддельный токен или удаленный пользователь - ошибка клиента, запрос уйдет анонимным.
+            // Без стека: такие токены приходят постоянно
+            log.debug("Rejected JWT: {}", e.getMessage());
         } catch (Exception e) {
-            logger.error("Cannot set user authentication: {}", e);
+            log.error("Cannot set user authentication", e);
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private boolean isRevoked(User tokenUser) {
+        return tokenUser != null && !tokenVersionStore.isCurrent(tokenUser.getId(), tokenUser.getTokenVersion());
+    }
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -17,6 +22,11 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
+    // Данные пользователя в access-токене, чтобы фильтру не нужно было читать пользователя из БД
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TOKEN_VERSION = "tv";
+
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
@@ -26,25 +36,74 @@ public class JwtService {
     @Value("${application.security.jwt.refresh-token.expiration}")
     private long refreshExpiration;
 
+    // Ключ и парсер строятся один раз при старте, а не на каждый запрос
+    private SecretKey signInKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        parser = Jwts.parser()
+                .verifyWith(signInKey)
+                .build();
+    }
+
+    @Timed("bank.jwt.parse")
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    @Timed("bank.jwt.parse")
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseAndValidate(token);
         return claimsResolver.apply(claims);
     }
 
+    @Timed("bank.jwt.sign")
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        return generateToken(userClaims(userDetails), userDetails);
     }
 
+    @Timed("bank.jwt.sign")
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
 
+    @Timed("bank.jwt.sign")
     public String generateRefreshToken(UserDetails userDetails) {
-        return buildToken(new HashMap<>(), userDetails, refreshExpiration);
+        return buildToken(userClaims(userDetails), userDetails, refreshExpiration);
+    }
+
+    /**
+     * Восстанавливает пользователя из claims токена без обращения к БД.
+     * Возвращает null для токенов без данных пользователя (выданных до их появления).
+     */
+    public User extractUser(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        if (userId == null) {
+            return null;
+        }
+        return User.builder()
+                .id(userId)
+                .username(claims.getSubject())
+                .role(Role.valueOf(claims.get(CLAIM_ROLE, String.class)))
+                .isActive(true)
+                .tokenVersion(extractTokenVersion(claims))
+                .build();
+    }
+
+    public Integer extractTokenVersion(Claims claims) {
+        return claims.get(CLAIM_TOKEN_VERSION, Integer.class);
+    }
+
+    private Map<String, Object> userClaims(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+            claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
+        return claims;
     }
 
     private String buildToken(
@@ -57,33 +116,32 @@ public class JwtService {
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey())
+                .signWith(signInKey)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    /**
+     * Проверяет подпись и срок действия токена за один разбор.
+     * Невалидный или истекший токен приводит к JwtException.
+     */
+    @Timed("bank.jwt.parse")
+    public Claims parseAndValidate(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    @Timed("bank.jwt.parse")
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return isTokenValid(parseAndValidate(token), userDetails);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Проверяет уже разобранные claims, не разбирая токен повторно
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 }
\ No newline at end of file
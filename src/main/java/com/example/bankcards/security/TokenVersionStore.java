@@ -0,0 +1,74 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Проверка отзыва stateless-токенов. Токен действителен, пока его версия совпадает
+ * с users.token_version и пользователь активен. Версии кэшируются на короткое время,
+ * поэтому БД читается не на каждый запрос, а изменения на этом экземпляре видны сразу.
+ */
+@Component
+public class TokenVersionStore {
+
+    // Версия для удаленных и деактивированных пользователей: не совпадает ни с одним токеном
+    private static final int REVOKED = -1;
+
+    private final UserRepository userRepository;
+    private final AsyncCache<Long, Integer> cache;
+
+    public TokenVersionStore(
+            UserRepository userRepository,
+            @Value("${application.security.jwt.token-version.max-size}") long maxSize,
+            @Value("${application.security.jwt.token-version.ttl}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        // Версия читается из БД вне блокировок кэша: загрузчик Cache.get(key, loader) работает
+        // внутри synchronized ConcurrentHashMap.compute и закреплял бы виртуальный поток за носителем.
+        // Параллельные запросы ждут ту же загрузку, а сброс во время загрузки удаляет ее из кэша.
+        CompletableFuture<Integer> loading = new CompletableFuture<>();
+        CompletableFuture<Integer> currentVersion = cache.asMap().putIfAbsent(userId, loading);
+        if (currentVersion == null) {
+            currentVersion = loading;
+            try {
+                loading.complete(userRepository.findActiveTokenVersion(userId).orElse(REVOKED));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e); // неудачная загрузка удаляется из кэша
+                throw e;
+            }
+        }
+        return currentVersion.join() == tokenVersion;
+    }
+
+    /**
+     * Сбрасывает закэшированную версию. Внутри транзакции сброс откладывается до коммита,
+     * чтобы кэш не успел заново прочитать старую версию.
+     */
+    public void evict(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.synchronous().invalidate(userId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.synchronous().invalidate(userId);
+            }
+        });
+    }
+}
@@ -8,6 +8,7 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.JwtService;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -23,6 +24,7 @@ public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final DashboardStatsStore dashboardStatsStore;
 
     @Transactional
     public AuthenticationResponse register(RegisterRequest request) {
@@ -47,6 +49,7 @@ public class AuthenticationService {
                 .build();
 
         userRepository.save(user);
+        dashboardStatsStore.userCreated();
 
         // Генерируем токены
         String jwtToken = jwtService.generateToken(user);
@@ -90,12 +93,15 @@ public class AuthenticationService {
     }
 
     public AuthenticationResponse refreshToken(String refreshToken) {
-        String username = jwtService.extractUsername(refreshToken);
-        
-        User user = userRepository.findByUsername(username)
+        Claims claims = jwtService.parseAndValidate(refreshToken);
+
+        User user = userRepository.findByUsername(claims.getSubject())
                 .orElseThrow(() -> new BadRequestException("User not found"));
 
-        if (!jwtService.isTokenValid(refreshToken, user)) {
+        // Токены, выданные до отзыва (деактивация, смена роли), не обновляются
+        Integer tokenVersion = jwtService.extractTokenVersion(claims);
+        if (!jwtService.isTokenValid(claims, user) || !user.isActive()
+                || (tokenVersion != null && tokenVersion != user.getTokenVersion())) {
             throw new BadRequestException("Invalid refresh token");
         }
 
@@ -0,0 +1,102 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.ExpirySweepDTO;
+import com.example.bankcards.repository.CardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Переводит карты с истекшим сроком в статус EXPIRED set-based UPDATE-ами порциями
+ * по batch-size строк, каждая порция в своей транзакции (блокировки строк короткие).
+ * Запускается после полуночи и при старте приложения, поэтому фильтры по статусу
+ * в запросах отстают от даты не больше чем на время до следующего прохода.
+ * Card.isExpired() дополнительно сравнивает дату, так что переводы и активация
+ * не зависят от того, успел ли пройти sweeper.
+ */
+@Slf4j
+@Component
+public class CardExpirySweeper {
+
+    private final CardRepository cardRepository;
+    private final DashboardStatsStore dashboardStatsStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Lock sweepLock = new ReentrantLock();
+    private volatile ExpirySweepDTO lastRun;
+
+    public CardExpirySweeper(CardRepository cardRepository,
+                             DashboardStatsStore dashboardStatsStore,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${application.cards.expiry-sweep.batch-size}") int batchSize) {
+        this.cardRepository = cardRepository;
+        this.dashboardStatsStore = dashboardStatsStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    // Карты, истекшие пока приложение не работало
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOnStartup() {
+        sweep();
+    }
+
+    @Scheduled(cron = "${application.cards.expiry-sweep.cron}")
+    public ExpirySweepDTO sweep() {
+        // ReentrantLock, а не synchronized: проход выполняет UPDATE-ы и может идти в виртуальном потоке
+        sweepLock.lock();
+        try {
+            return sweepExpiredCards();
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private ExpirySweepDTO sweepExpiredCards() {
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now();
+
+        long expired = 0;
+        int batches = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(
+                    status -> cardRepository.expireBatch(today, LocalDateTime.now(), batchSize));
+            expired += updated;
+            batches++;
+        } while (updated == batchSize);
+
+        if (expired > 0) {
+            // Карты могли быть и активными, и заблокированными - счетчики пересчитаются из БД
+            dashboardStatsStore.invalidate();
+        }
+
+        ExpirySweepDTO result = ExpirySweepDTO.builder()
+                .expiredCards(expired)
+                .batches(batches)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+                .finishedAt(LocalDateTime.now())
+                .build();
+        lastRun = result;
+        log.info("Card expiry sweep: {} cards expired in {} batches, {} ms",
+                result.getExpiredCards(), result.getBatches(), result.getDurationMillis());
+        return result;
+    }
+
+    // null, если проход еще не выполнялся
+    public ExpirySweepDTO getLastRun() {
+        return lastRun;
+    }
+}
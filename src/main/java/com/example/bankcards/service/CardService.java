@@ -1,5 +1,7 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BulkCardIssueRequest;
+import com.example.bankcards.dto.BulkCardIssueResponse;
 import com.example.bankcards.dto.CardCreateRequest;
 import com.example.bankcards.dto.CardDTO;
 import com.example.bankcards.entity.Card;
@@ -12,27 +14,46 @@ import com.example.bankcards.exception.UnauthorizedException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.util.CardMaskingUtil;
+import com.example.bankcards.util.CardNumberGenerator;
 import com.example.bankcards.util.EncryptionUtil;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class CardService {
 
+    private static final int MAX_BULK_CARDS = 10_000;
+    private static final int HASH_CHECK_BATCH_SIZE = 1000;
+
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final UserService userService;
     private final EncryptionUtil encryptionUtil;
     private final CardMaskingUtil cardMaskingUtil;
+    private final CardNumberGenerator cardNumberGenerator;
+    private final DashboardStatsStore dashboardStatsStore;
 
     @Transactional
     public CardDTO createCard(CardCreateRequest request) {
@@ -55,9 +76,9 @@ public class CardService {
             throw new BadRequestException("Invalid card number");
         }
 
-        // Проверяем, не существует ли карта с таким номером
-        String encryptedCardNumber = encryptionUtil.encrypt(request.getCardNumber());
-        if (cardRepository.existsByCardNumber(encryptedCardNumber)) {
+        // Проверяем, не существует ли карта с таким номером (по хешу, шифротекст для поиска не используется)
+        String cardNumberHash = encryptionUtil.hashCardNumber(request.getCardNumber());
+        if (cardRepository.existsByCardNumberHash(cardNumberHash)) {
             throw new BadRequestException("Card with this number already exists");
         }
 
@@ -68,7 +89,9 @@ public class CardService {
 
         // Создаем карту
         Card card = Card.builder()
-                .cardNumber(encryptedCardNumber)
+                .cardNumber(encryptionUtil.encrypt(request.getCardNumber()))
+                .cardNumberHash(cardNumberHash)
+                .cardLast4(cardMaskingUtil.getLastFour(request.getCardNumber()))
                 .cardHolder(request.getCardHolder())
                 .expiryDate(request.getExpiryDate())
                 .cvv(request.getCvv() != null ? encryptionUtil.encrypt(request.getCvv()) : null)
@@ -78,9 +101,76 @@ public class CardService {
                 .build();
 
         Card savedCard = cardRepository.save(card);
+        dashboardStatsStore.cardCreated(savedCard.getStatus(), savedCard.getBalance());
         return mapToDTO(savedCard);
     }
 
+    /**
+     * Массовый выпуск карт (для админа): cardsPerUser новых карт каждому пользователю.
+     * Номера генерируются по Luhn, уникальность проверяется в памяти и по БД порциями хешей,
+     * шифрование идет параллельно, карты вставляются JDBC batch-ами.
+     */
+    @Transactional
+    public BulkCardIssueResponse issueCards(BulkCardIssueRequest request) {
+        Set<Long> userIds = new LinkedHashSet<>(request.getUserIds());
+        int cardsPerUser = request.getCardsPerUser();
+        int total = userIds.size() * cardsPerUser;
+        if (total > MAX_BULK_CARDS) {
+            throw new BadRequestException("No more than " + MAX_BULK_CARDS + " cards per request");
+        }
+
+        if (request.getExpiryDate().isBefore(LocalDate.now())) {
+            throw new BadRequestException("Expiry date cannot be in the past");
+        }
+
+        Map<Long, User> owners = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<User> ownerOfCard = new ArrayList<>(total);
+        for (Long userId : userIds) {
+            User owner = owners.get(userId);
+            if (owner == null) {
+                throw new ResourceNotFoundException("User", "id", userId);
+            }
+            for (int i = 0; i < cardsPerUser; i++) {
+                ownerOfCard.add(owner);
+            }
+        }
+
+        List<Map.Entry<String, String>> numbers = new ArrayList<>(generateUniqueCardNumbers(total).entrySet());
+        BigDecimal balance = request.getInitialBalance() != null ? request.getInitialBalance() : BigDecimal.ZERO;
+        LocalDateTime now = LocalDateTime.now();
+
+        // Шифрование номера и CVV - основная работа, делим ее между ядрами (порядок сохраняется)
+        List<Card> cards = IntStream.range(0, total).parallel()
+                .mapToObj(i -> {
+                    String cardNumber = numbers.get(i).getValue();
+                    User owner = ownerOfCard.get(i);
+                    return Card.builder()
+                            .cardNumber(encryptionUtil.encrypt(cardNumber))
+                            .cardNumberHash(numbers.get(i).getKey())
+                            .cardLast4(cardMaskingUtil.getLastFour(cardNumber))
+                            .cardHolder(cardHolderName(owner))
+                            .expiryDate(request.getExpiryDate())
+                            .cvv(encryptionUtil.encrypt(cardNumberGenerator.generateCVV()))
+                            .status(CardStatus.ACTIVE)
+                            .balance(balance)
+                            .owner(owner)
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build();
+                })
+                .collect(Collectors.toList());
+
+        cardRepository.batchInsert(cards);
+        dashboardStatsStore.cardsCreated(CardStatus.ACTIVE, total, balance.multiply(BigDecimal.valueOf(total)));
+
+        return BulkCardIssueResponse.builder()
+                .issued(total)
+                .cards(cards.stream().map(this::mapToDTO).collect(Collectors.toList()))
+                .build();
+    }
+
+    @Timed("bank.cards.read")
     public CardDTO getCardById(Long id) {
         User currentUser = userService.getCurrentUser();
         Card card = cardRepository.findById(id)
@@ -94,21 +184,35 @@ public class CardService {
         return mapToDTO(card);
     }
 
-    public Page<CardDTO> getUserCards(Pageable pageable) {
+    /**
+     * withTotal = false: без COUNT, результат - Slice с признаком hasNext
+     */
+    @Timed("bank.cards.read")
+    public Slice<CardDTO> getUserCards(Pageable pageable, boolean withTotal) {
         User currentUser = userService.getCurrentUser();
-        return cardRepository.findByOwner(currentUser, pageable).map(this::mapToDTO);
+        Slice<Card> cards = withTotal
+                ? cardRepository.findByOwner(currentUser, pageable)
+                : cardRepository.findSliceByOwner(currentUser, pageable);
+        return cards.map(this::mapToDTO);
     }
 
-    public Page<CardDTO> getUserCardsByStatus(CardStatus status, Pageable pageable) {
+    @Timed("bank.cards.read")
+    public Slice<CardDTO> getUserCardsByStatus(CardStatus status, Pageable pageable, boolean withTotal) {
         User currentUser = userService.getCurrentUser();
-        return cardRepository.findByOwnerAndStatus(currentUser, status, pageable).map(this::mapToDTO);
+        Slice<Card> cards = withTotal
+                ? cardRepository.findByOwnerAndStatus(currentUser, status, pageable)
+                : cardRepository.findSliceByOwnerAndStatus(currentUser, status, pageable);
+        return cards.map(this::mapToDTO);
     }
 
-    public Page<CardDTO> getAllCards(Pageable pageable) {
+    @Timed("bank.cards.read")
+    public Slice<CardDTO> getAllCards(Pageable pageable, boolean withTotal) {
         // Только для админов
-        return cardRepository.findAll(pageable).map(this::mapToDTO);
+        Slice<Card> cards = withTotal ? cardRepository.findAll(pageable) : cardRepository.findAllAsSlice(pageable);
+        return cards.map(this::mapToDTO);
     }
 
+    @Timed("bank.cards.read")
     public List<CardDTO> getCardsByUserId(Long userId) {
         User currentUser = userService.getCurrentUser();
         
@@ -137,8 +241,10 @@ public class CardService {
             throw new BadRequestException("Card is already blocked");
         }
 
+        CardStatus previousStatus = card.getStatus();
         card.setStatus(CardStatus.BLOCKED);
         Card updatedCard = cardRepository.save(card);
+        dashboardStatsStore.cardStatusChanged(previousStatus, CardStatus.BLOCKED);
         return mapToDTO(updatedCard);
     }
 
@@ -157,8 +263,10 @@ public class CardService {
             throw new BadRequestException("Cannot activate expired card");
         }
 
+        CardStatus previousStatus = card.getStatus();
         card.setStatus(CardStatus.ACTIVE);
         Card updatedCard = cardRepository.save(card);
+        dashboardStatsStore.cardStatusChanged(previousStatus, CardStatus.ACTIVE);
         return mapToDTO(updatedCard);
     }
 
@@ -174,8 +282,10 @@ public class CardService {
         }
 
         cardRepository.delete(card);
+        dashboardStatsStore.cardDeleted(card.getStatus(), card.getBalance());
     }
 
+    @Timed("bank.cards.read")
     public BigDecimal getCardBalance(Long id) {
         User currentUser = userService.getCurrentUser();
         Card card = cardRepository.findById(id)
@@ -190,8 +300,8 @@ public class CardService {
     }
 
     private CardDTO mapToDTO(Card card) {
-        String decryptedCardNumber = encryptionUtil.decrypt(card.getCardNumber());
-        String maskedCardNumber = cardMaskingUtil.maskCardNumber(decryptedCardNumber);
+        // Маска строится по сохраненным последним цифрам, номер не расшифровывается
+        String maskedCardNumber = cardMaskingUtil.maskLastFour(card.getCardLast4());
 
         return CardDTO.builder()
                 .id(card.getId())
@@ -204,9 +314,50 @@ public class CardService {
                 .build();
     }
 
+    // Хеш -> номер для count новых номеров, которых нет ни в БД, ни среди уже сгенерированных.
+    // Совпадения (в 16-значном пространстве крайне редкие) перегенерируются следующим кругом
+    private Map<String, String> generateUniqueCardNumbers(int count) {
+        Map<String, String> numbersByHash = new HashMap<>();
+        while (numbersByHash.size() < count) {
+            List<String> candidates = Stream.generate(cardNumberGenerator::generateCardNumber)
+                    .limit(count - numbersByHash.size())
+                    .collect(Collectors.toList());
+            Map<String, String> candidatesByHash = candidates.parallelStream()
+                    .collect(Collectors.toConcurrentMap(encryptionUtil::hashCardNumber, Function.identity(),
+                            (first, duplicate) -> first));
+            candidatesByHash.keySet().removeAll(numbersByHash.keySet());
+
+            List<String> hashes = new ArrayList<>(candidatesByHash.keySet());
+            Set<String> taken = new HashSet<>();
+            for (int from = 0; from < hashes.size(); from += HASH_CHECK_BATCH_SIZE) {
+                taken.addAll(cardRepository.findExistingCardNumberHashes(
+                        hashes.subList(from, Math.min(from + HASH_CHECK_BATCH_SIZE, hashes.size()))));
+            }
+            candidatesByHash.keySet().removeAll(taken);
+
+            numbersByHash.putAll(candidatesByHash);
+        }
+        return numbersByHash;
+    }
+
+    private String cardHolderName(User owner) {
+        if (owner.getFirstName() != null && owner.getLastName() != null) {
+            return (owner.getFirstName() + " " + owner.getLastName()).toUpperCase(Locale.ROOT);
+        }
+        return owner.getUsername().toUpperCase(Locale.ROOT);
+    }
+
     // Внутренний метод для получения карты без DTO (для использования в TransferService)
     protected Card getCardEntity(Long id) {
         return cardRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Card", "id", id));
     }
+
+    // Загружает карты пользователя с блокировкой строк до конца текущей транзакции (для TransferService).
+    // Чужие карты в результат не попадают и не блокируются.
+    // Блокировки берутся в порядке возрастания id, поэтому встречные переводы не дают deadlock.
+    protected Map<Long, Card> getCardEntitiesForUpdate(Collection<Long> ids, Long userId) {
+        return cardRepository.findAllByIdAndUserIdForUpdate(ids, userId).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+    }
 }
\ No newline at end of file
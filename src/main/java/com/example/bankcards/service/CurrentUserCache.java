@@ -0,0 +1,101 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CacheStatsDTO;
+import com.example.bankcards.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Кэш текущего пользователя для UserService.getCurrentUser.
+ * Первый уровень - атрибут HTTP-запроса: повторные вызовы в одном запросе не идут в БД.
+ * Второй уровень (можно отключить) - Caffeine с коротким TTL по username.
+ * Закэшированный User отсоединен от сессии и общий для потоков, поэтому его нельзя изменять.
+ */
+@Component
+public class CurrentUserCache {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserCache.class.getName() + ".user";
+
+    private final Cache<String, User> cache; // null, если второй уровень выключен
+    private final LongAdder requestHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CurrentUserCache(
+            @Value("${application.users.current-user-cache.enabled}") boolean enabled,
+            @Value("${application.users.current-user-cache.max-size}") long maxSize,
+            @Value("${application.users.current-user-cache.ttl}") Duration ttl) {
+        this.cache = enabled
+                ? Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build()
+                : null;
+    }
+
+    public User get(String username, Supplier<User> loader) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user
+                && user.getUsername().equals(username)) {
+            requestHits.increment();
+            return user;
+        }
+
+        User user = cache != null ? cache.getIfPresent(username) : null;
+        if (user == null) {
+            misses.increment();
+            user = loader.get();
+            if (cache != null) {
+                cache.put(username, user);
+            }
+        }
+
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /**
+     * Удаляет пользователя из кэша. Внутри транзакции удаление повторяется после коммита,
+     * чтобы параллельный запрос не успел закэшировать старое состояние.
+     */
+    public void evict(String username) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+        if (cache == null) {
+            return;
+        }
+
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public CacheStatsDTO getStats() {
+        CacheStats stats = cache != null ? cache.stats() : CacheStats.empty();
+        return CacheStatsDTO.builder()
+                .requestHits(requestHits.sum())
+                .cacheHits(stats.hitCount())
+                .misses(misses.sum())
+                .evictions(stats.evictionCount())
+                .size(cache != null ? cache.estimatedSize() : 0)
+                .build();
+    }
+}
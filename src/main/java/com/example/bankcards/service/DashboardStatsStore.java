@@ -0,0 +1,257 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.DashboardStatsDTO;
+import com.example.bankcards.dto.TopSenderDTO;
+import com.example.bankcards.dto.TransferVolumeDTO;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Статистика админ-панели в памяти. Сервисы сообщают об изменениях (новый пользователь,
+ * смена статуса карты, перевод), и счетчики обновляются после коммита, так что панель
+ * не сканирует cards и transfers при каждом обновлении.
+ * <p>
+ * Периодически агрегаты пересчитываются из БД: это исправляет расхождения от изменений
+ * в обход сервисов (миграции, правки в БД) и от событий, пришедших во время сверки,
+ * а также учитывает изменения на других экземплярах приложения. CardExpirySweeper
+ * меняет статусы массовым UPDATE и после прохода сбрасывает агрегаты (invalidate).
+ */
+@Component
+public class DashboardStatsStore {
+
+    private static final int HOURS_IN_DAY = 24;
+
+    private final UserRepository userRepository;
+    private final CardRepository cardRepository;
+    private final TransferRepository transferRepository;
+    private final Duration hourlyRetention;
+    private final int topSendersLimit;
+
+    private volatile Aggregates aggregates = new Aggregates(null);
+    private volatile boolean stale = true; // первая панель или массовое изменение - пересчитать из БД
+    private final Lock reconcileLock = new ReentrantLock();
+
+    public DashboardStatsStore(UserRepository userRepository,
+                               CardRepository cardRepository,
+                               TransferRepository transferRepository,
+                               @Value("${application.dashboard.hourly-retention}") Duration hourlyRetention,
+                               @Value("${application.dashboard.top-senders}") int topSendersLimit) {
+        this.userRepository = userRepository;
+        this.cardRepository = cardRepository;
+        this.transferRepository = transferRepository;
+        this.hourlyRetention = hourlyRetention;
+        this.topSendersLimit = topSendersLimit;
+    }
+
+    public void userCreated() {
+        afterCommit(() -> aggregates.users.incrementAndGet());
+    }
+
+    public void cardCreated(CardStatus status, BigDecimal balance) {
+        cardsCreated(status, 1, balance);
+    }
+
+    public void cardsCreated(CardStatus status, long count, BigDecimal totalBalance) {
+        afterCommit(() -> {
+            Aggregates current = aggregates;
+            current.cards.merge(status, count, Long::sum);
+            current.totalBalance.accumulateAndGet(totalBalance, BigDecimal::add);
+        });
+    }
+
+    public void cardStatusChanged(CardStatus from, CardStatus to) {
+        if (from == to) {
+            return;
+        }
+        afterCommit(() -> {
+            Aggregates current = aggregates;
+            current.cards.merge(from, -1L, Long::sum);
+            current.cards.merge(to, 1L, Long::sum);
+        });
+    }
+
+    public void cardDeleted(CardStatus status, BigDecimal balance) {
+        afterCommit(() -> {
+            Aggregates current = aggregates;
+            current.cards.merge(status, -1L, Long::sum);
+            current.totalBalance.accumulateAndGet(balance, BigDecimal::subtract);
+        });
+    }
+
+    // Перевод между своими картами не меняет общий баланс, только объемы переводов
+    public void transferCompleted(User sender, BigDecimal amount, LocalDateTime transferDate) {
+        LocalDateTime hour = transferDate.truncatedTo(ChronoUnit.HOURS);
+        afterCommit(() -> {
+            Aggregates current = aggregates;
+            current.hourly.merge(hour, new Totals(1, amount), Totals::plus);
+            current.senders.merge(sender.getId(), new SenderTotals(sender.getUsername(), new Totals(1, amount)),
+                    SenderTotals::plus);
+        });
+    }
+
+    /**
+     * Изменение, которое нельзя выразить приращением (например, удаление пользователя
+     * вместе с картами и переводами): следующее обращение к панели пересчитает агрегаты.
+     */
+    public void invalidate() {
+        afterCommit(() -> stale = true);
+    }
+
+    public DashboardStatsDTO getStats() {
+        if (stale) {
+            reconcile();
+        }
+
+        Aggregates current = aggregates;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime currentHour = now.truncatedTo(ChronoUnit.HOURS);
+        current.hourly.headMap(currentHour.minus(hourlyRetention)).clear();
+
+        NavigableMap<LocalDateTime, Totals> lastDay =
+                current.hourly.tailMap(currentHour.minusHours(HOURS_IN_DAY - 1), true);
+        Map<LocalDateTime, Totals> byDay = new TreeMap<>();
+        current.hourly.forEach((hour, totals) -> byDay.merge(hour.truncatedTo(ChronoUnit.DAYS), totals, Totals::plus));
+
+        List<TopSenderDTO> topSenders = current.senders.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<Long, SenderTotals> e) -> e.getValue().totals().volume())
+                        .reversed())
+                .limit(topSendersLimit)
+                .map(e -> TopSenderDTO.builder()
+                        .userId(e.getKey())
+                        .username(e.getValue().username())
+                        .transfersCount(e.getValue().totals().count())
+                        .volume(e.getValue().totals().volume())
+                        .build())
+                .collect(Collectors.toList());
+
+        return DashboardStatsDTO.builder()
+                .totalUsers(current.users.get())
+                .activeCards(current.cards.getOrDefault(CardStatus.ACTIVE, 0L))
+                .blockedCards(current.cards.getOrDefault(CardStatus.BLOCKED, 0L))
+                .expiredCards(current.cards.getOrDefault(CardStatus.EXPIRED, 0L))
+                .totalBalance(current.totalBalance.get())
+                .transfersByHour(toVolumes(lastDay))
+                .transfersByDay(toVolumes(byDay))
+                .topSenders(topSenders)
+                .reconciledAt(current.reconciledAt)
+                .build();
+    }
+
+    /**
+     * Пересчитывает агрегаты из БД и заменяет ими текущие. Приращения, пришедшие
+     * между чтением из БД и заменой, теряются или учитываются дважды - до следующей сверки.
+     */
+    @Scheduled(fixedDelayString = "${application.dashboard.reconcile-interval}",
+               initialDelayString = "${application.dashboard.reconcile-interval}")
+    public void reconcile() {
+        // ReentrantLock, а не synchronized: сверка читает БД и может выполняться в виртуальном потоке запроса
+        reconcileLock.lock();
+        try {
+            reconcileFromDatabase();
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void reconcileFromDatabase() {
+        stale = false; // инвалидация во время сверки снова выставит флаг
+        LocalDateTime now = LocalDateTime.now();
+        Aggregates fresh = new Aggregates(now);
+
+        fresh.users.set(userRepository.count());
+
+        cardRepository.sumByStatus().forEach(totals -> {
+            fresh.cards.put(totals.getStatus(), totals.getCardsCount());
+            fresh.totalBalance.accumulateAndGet(totals.getBalance(), BigDecimal::add);
+        });
+
+        LocalDateTime since = now.truncatedTo(ChronoUnit.HOURS).minus(hourlyRetention);
+        transferRepository.sumByHourSince(since).forEach(totals -> fresh.hourly.put(
+                LocalDateTime.of(totals.getTransferYear(), totals.getTransferMonth(), totals.getTransferDay(),
+                        totals.getTransferHour(), 0),
+                new Totals(totals.getTransfersCount(), totals.getVolume())));
+
+        transferRepository.sumBySender().forEach(totals -> fresh.senders.put(totals.getUserId(),
+                new SenderTotals(totals.getUsername(), new Totals(totals.getTransfersCount(), totals.getVolume()))));
+
+        aggregates = fresh;
+    }
+
+    private List<TransferVolumeDTO> toVolumes(Map<LocalDateTime, Totals> totalsByPeriod) {
+        return totalsByPeriod.entrySet().stream()
+                .map(e -> TransferVolumeDTO.builder()
+                        .period(e.getKey())
+                        .transfersCount(e.getValue().count())
+                        .volume(e.getValue().volume())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // Счетчики меняются только после коммита, откатившиеся операции в статистику не попадают
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private static final class Aggregates {
+
+        private final AtomicLong users = new AtomicLong();
+        private final Map<CardStatus, Long> cards = new ConcurrentHashMap<>();
+        private final AtomicReference<BigDecimal> totalBalance = new AtomicReference<>(BigDecimal.ZERO);
+        private final ConcurrentSkipListMap<LocalDateTime, Totals> hourly = new ConcurrentSkipListMap<>();
+        private final Map<Long, SenderTotals> senders = new ConcurrentHashMap<>();
+        private final LocalDateTime reconciledAt;
+
+        private Aggregates(LocalDateTime reconciledAt) {
+            this.reconciledAt = reconciledAt;
+        }
+    }
+
+    private record Totals(long count, BigDecimal volume) {
+
+        private Totals plus(Totals other) {
+            return new Totals(count + other.count, volume.add(other.volume));
+        }
+    }
+
+    private record SenderTotals(String username, Totals totals) {
+
+        private SenderTotals plus(SenderTotals other) {
+            return new SenderTotals(other.username, totals.plus(other.totals));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.TransferRepository.TransferExportRow;
+import com.example.bankcards.util.CardMaskingUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Пишет переводы за период прямо в выходной поток по мере чтения курсора БД.
+ * В памяти держится только текущая строка, поэтому расход heap не зависит от размера периода.
+ */
+@Component
+public class TransferExporter {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    // Подготовленная выгрузка: параметры уже проверены, данные пишутся при вызове writeTo
+    @FunctionalInterface
+    public interface Export {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final String CSV_HEADER = "id,fromCard,toCard,amount,transferDate,status,description";
+
+    private final TransferRepository transferRepository;
+    private final CardMaskingUtil cardMaskingUtil;
+    private final ObjectWriter ndjsonWriter;
+
+    public TransferExporter(TransferRepository transferRepository,
+                            CardMaskingUtil cardMaskingUtil,
+                            ObjectMapper objectMapper) {
+        this.transferRepository = transferRepository;
+        this.cardMaskingUtil = cardMaskingUtil;
+        // Одна запись - одна строка, поток ответа закрывает контейнер
+        this.ndjsonWriter = objectMapper.writerFor(TransferDTO.class)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+    }
+
+    // Курсор PostgreSQL с fetch size работает только внутри транзакции
+    @Transactional(readOnly = true)
+    public void export(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                       Format format, OutputStream out) throws IOException {
+        try (Stream<TransferExportRow> rows = transferRepository.streamByUserIdAndDateRange(userId, startDate, endDate)) {
+            if (format == Format.CSV) {
+                writeCsv(rows.iterator(), out);
+            } else {
+                writeNdjson(rows.iterator(), out);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<TransferExportRow> rows, OutputStream out) throws IOException {
+        boolean empty = !rows.hasNext();
+        try (SequenceWriter writer = ndjsonWriter.writeValues(out)) {
+            while (rows.hasNext()) {
+                writer.write(toDTO(rows.next()));
+            }
+        }
+        // Разделитель пишется между записями, перевод строки после последней; пустой экспорт - пустое тело
+        if (!empty) {
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private void writeCsv(Iterator<TransferExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            TransferDTO transfer = toDTO(rows.next());
+            writer.write(String.valueOf(transfer.getId()));
+            writer.write(',');
+            writer.write(transfer.getFromCardMasked());
+            writer.write(',');
+            writer.write(transfer.getToCardMasked());
+            writer.write(',');
+            writer.write(transfer.getAmount().toPlainString());
+            writer.write(',');
+            writer.write(transfer.getTransferDate().toString());
+            writer.write(',');
+            writer.write(transfer.getStatus().name());
+            writer.write(',');
+            writeCsvValue(writer, transfer.getDescription());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    // Значения с запятыми, кавычками и переводами строк берутся в кавычки (RFC 4180)
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private TransferDTO toDTO(TransferExportRow row) {
+        return TransferDTO.builder()
+                .id(row.getId())
+                .fromCardMasked(cardMaskingUtil.maskLastFour(row.getFromCardLast4()))
+                .toCardMasked(cardMaskingUtil.maskLastFour(row.getToCardLast4()))
+                .amount(row.getAmount())
+                .transferDate(row.getTransferDate())
+                .status(row.getStatus())
+                .description(row.getDescription())
+                .build();
+    }
+}
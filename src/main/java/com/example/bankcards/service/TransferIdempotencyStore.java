@@ -0,0 +1,77 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Хранит в памяти результаты переводов по ключу Idempotency-Key.
+ * Повторный запрос с тем же ключом получает исходный TransferDTO без обращения к БД.
+ * Вместе с результатом хранятся карты и сумма запроса, чтобы повтор с другими
+ * параметрами можно было отклонить.
+ * Кэш ограничен по размеру и времени жизни; источником истины остается колонка
+ * transfers.idempotency_key с уникальным ограничением.
+ */
+@Component
+public class TransferIdempotencyStore {
+
+    private final Cache<String, Entry> cache;
+
+    public TransferIdempotencyStore(
+            @Value("${application.transfers.idempotency.max-size}") long maxSize,
+            @Value("${application.transfers.idempotency.ttl}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Entry get(Long userId, String idempotencyKey) {
+        return cache.getIfPresent(cacheKey(userId, idempotencyKey));
+    }
+
+    /**
+     * Кладет результат в кэш. Внутри транзакции запись откладывается до коммита,
+     * чтобы откатившийся перевод не попал в кэш.
+     */
+    public void put(Long userId, String idempotencyKey, Entry entry) {
+        String key = cacheKey(userId, idempotencyKey);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(key, entry);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(key, entry);
+            }
+        });
+    }
+
+    /**
+     * Результат перевода и параметры запроса, с которыми он выполнен
+     */
+    public record Entry(Long fromCardId, Long toCardId, BigDecimal amount, TransferDTO transfer) {
+
+        /**
+         * Тот же перевод: карты совпадают, сумма равна без учета масштаба (100.0 и 100.00)
+         */
+        public boolean matches(Long fromCardId, Long toCardId, BigDecimal amount) {
+            return this.fromCardId.equals(fromCardId)
+                    && this.toCardId.equals(toCardId)
+                    && this.amount.compareTo(amount) == 0;
+        }
+    }
+
+    private String cacheKey(Long userId, String idempotencyKey) {
+        return userId + ":" + idempotencyKey;
+    }
+}
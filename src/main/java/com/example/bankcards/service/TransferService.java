@@ -1,5 +1,8 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.BatchTransferResult;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.TransferDTO;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.Card;
@@ -8,82 +11,111 @@ import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.TransferStatus;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.exception.CustomException;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
 import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.exception.UnauthorizedException;
 import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.util.CardMaskingUtil;
-import com.example.bankcards.util.EncryptionUtil;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TransferService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final TransferRepository transferRepository;
     private final CardService cardService;
     private final UserService userService;
-    private final EncryptionUtil encryptionUtil;
     private final CardMaskingUtil cardMaskingUtil;
+    private final TransferIdempotencyStore idempotencyStore;
+    private final TransferExporter transferExporter;
+    private final DashboardStatsStore dashboardStatsStore;
 
     @Transactional
+    @Timed("bank.transfers.create")
     public TransferDTO createTransfer(TransferRequest request) {
-        User currentUser = userService.getCurrentUser();
-
-        // Получаем карты
-        Card fromCard = cardService.getCardEntity(request.getFromCardId());
-        Card toCard = cardService.getCardEntity(request.getToCardId());
+        return createTransfer(request, null);
+    }
 
-        // Проверяем, что обе карты принадлежат текущему пользователю
-        if (!fromCard.getOwner().getId().equals(currentUser.getId())) {
-            throw new UnauthorizedException("Source card does not belong to you");
-        }
+    /**
+     * Создает перевод. Если передан idempotencyKey и перевод с этим ключом уже был
+     * выполнен, возвращается исходный перевод без повторного списания. Повтор ключа
+     * с другими картами или суммой отклоняется (422).
+     */
+    @Transactional
+    @Timed("bank.transfers.create")
+    public TransferDTO createTransfer(TransferRequest request, String idempotencyKey) {
+        User currentUser = userService.getCurrentUser();
 
-        if (!toCard.getOwner().getId().equals(currentUser.getId())) {
-            throw new BadRequestException("You can only transfer between your own cards");
+        // Повтор запроса отвечаем из памяти, не трогая карты
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > 100) {
+                throw new BadRequestException("Idempotency-Key must be 1 to 100 characters long");
+            }
+            TransferIdempotencyStore.Entry cached = idempotencyStore.get(currentUser.getId(), idempotencyKey);
+            if (cached != null) {
+                if (!cached.matches(request.getFromCardId(), request.getToCardId(), request.getAmount())) {
+                    throw new IdempotencyKeyConflictException();
+                }
+                return cached.transfer();
+            }
         }
 
         // Проверяем, что карты разные
-        if (fromCard.getId().equals(toCard.getId())) {
+        if (request.getFromCardId().equals(request.getToCardId())) {
             throw new BadRequestException("Cannot transfer to the same card");
         }
 
-        // Проверяем статусы карт
-        if (fromCard.getStatus() != CardStatus.ACTIVE) {
-            throw new BadRequestException("Source card is not active");
-        }
-
-        if (toCard.getStatus() != CardStatus.ACTIVE) {
-            throw new BadRequestException("Destination card is not active");
-        }
-
-        // Проверяем, не истек ли срок карт
-        if (fromCard.isExpired()) {
-            throw new BadRequestException("Source card has expired");
-        }
+        // Получаем обе карты с блокировкой строк: баланс проверяется и меняется
+        // под блокировкой, поэтому параллельные переводы не теряют обновления
+        Map<Long, Card> cards = cardService.getCardEntitiesForUpdate(
+                List.of(request.getFromCardId(), request.getToCardId()), currentUser.getId());
 
-        if (toCard.isExpired()) {
-            throw new BadRequestException("Destination card has expired");
-        }
+        Card fromCard = getLockedFromCard(cards, request.getFromCardId());
+        Card toCard = getLockedToCard(cards, request.getToCardId());
 
-        // Проверяем сумму
-        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new BadRequestException("Transfer amount must be positive");
+        // Под блокировкой карт проверяем, не выполнен ли уже перевод с этим ключом
+        // (кэш мог быть вытеснен или запрос пришел на другой экземпляр)
+        if (idempotencyKey != null) {
+            Transfer existing = transferRepository
+                    .findByUserIdAndIdempotencyKey(currentUser.getId(), idempotencyKey)
+                    .orElse(null);
+            if (existing != null) {
+                TransferIdempotencyStore.Entry entry = new TransferIdempotencyStore.Entry(
+                        existing.getFromCard().getId(), existing.getToCard().getId(),
+                        existing.getAmount(), mapToDTO(existing));
+                idempotencyStore.put(currentUser.getId(), idempotencyKey, entry);
+                if (!entry.matches(request.getFromCardId(), request.getToCardId(), request.getAmount())) {
+                    throw new IdempotencyKeyConflictException();
+                }
+                return entry.transfer();
+            }
         }
 
-        // Проверяем баланс
-        if (fromCard.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException("Insufficient funds on the source card");
-        }
+        validateTransfer(fromCard, toCard, request.getAmount());
 
         // Выполняем перевод
         fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
@@ -97,10 +129,85 @@ public class TransferService {
                 .description(request.getDescription())
                 .status(TransferStatus.COMPLETED)
                 .user(currentUser)
+                .idempotencyKey(idempotencyKey)
                 .build();
 
         Transfer savedTransfer = transferRepository.save(transfer);
-        return mapToDTO(savedTransfer);
+        dashboardStatsStore.transferCompleted(currentUser, savedTransfer.getAmount(), savedTransfer.getTransferDate());
+        TransferDTO result = mapToDTO(savedTransfer);
+        if (idempotencyKey != null) {
+            idempotencyStore.put(currentUser.getId(), idempotencyKey, new TransferIdempotencyStore.Entry(
+                    fromCard.getId(), toCard.getId(), savedTransfer.getAmount(), result));
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет пачку переводов в одной транзакции. Все карты загружаются одним
+     * запросом с блокировкой, переводы применяются по порядку, записи о переводах
+     * вставляются одним JDBC batch. Ошибка одного перевода не отменяет остальные.
+     */
+    @Transactional
+    public BatchTransferResponse createTransfers(List<TransferRequest> requests) {
+        User currentUser = userService.getCurrentUser();
+
+        Set<Long> cardIds = new HashSet<>();
+        for (TransferRequest request : requests) {
+            cardIds.add(request.getFromCardId());
+            cardIds.add(request.getToCardId());
+        }
+        Map<Long, Card> cards = cardService.getCardEntitiesForUpdate(cardIds, currentUser.getId());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BatchTransferResult> results = new ArrayList<>(requests.size());
+        List<Transfer> transfers = new ArrayList<>();
+        List<BatchTransferResult> succeeded = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            try {
+                if (request.getFromCardId().equals(request.getToCardId())) {
+                    throw new BadRequestException("Cannot transfer to the same card");
+                }
+
+                Card fromCard = getLockedFromCard(cards, request.getFromCardId());
+                Card toCard = getLockedToCard(cards, request.getToCardId());
+                validateTransfer(fromCard, toCard, request.getAmount());
+
+                fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
+                toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+
+                transfers.add(Transfer.builder()
+                        .fromCard(fromCard)
+                        .toCard(toCard)
+                        .amount(request.getAmount())
+                        .description(request.getDescription())
+                        .status(TransferStatus.COMPLETED)
+                        .user(currentUser)
+                        .transferDate(now)
+                        .build());
+
+                BatchTransferResult result = BatchTransferResult.builder().index(i).success(true).build();
+                succeeded.add(result);
+                results.add(result);
+            } catch (CustomException e) {
+                results.add(BatchTransferResult.builder().index(i).success(false).error(e.getMessage()).build());
+            }
+        }
+
+        // Балансы карт сохранятся при коммите (по одному UPDATE на карту)
+        transferRepository.batchInsert(transfers);
+        for (int i = 0; i < transfers.size(); i++) {
+            Transfer transfer = transfers.get(i);
+            dashboardStatsStore.transferCompleted(currentUser, transfer.getAmount(), transfer.getTransferDate());
+            succeeded.get(i).setTransfer(mapToDTO(transfer));
+        }
+
+        return BatchTransferResponse.builder()
+                .succeeded(succeeded.size())
+                .failed(results.size() - succeeded.size())
+                .results(results)
+                .build();
     }
 
     public TransferDTO getTransferById(Long id) {
@@ -116,22 +223,103 @@ public class TransferService {
         return mapToDTO(transfer);
     }
 
-    public Page<TransferDTO> getUserTransfers(Pageable pageable) {
+    /**
+     * withTotal = false: без COUNT, результат - Slice с признаком hasNext
+     */
+    public Slice<TransferDTO> getUserTransfers(Pageable pageable, boolean withTotal) {
         User currentUser = userService.getCurrentUser();
-        return transferRepository.findByUser(currentUser, pageable).map(this::mapToDTO);
+        Slice<Transfer> transfers = withTotal
+                ? transferRepository.findByUser(currentUser, pageable)
+                : transferRepository.findSliceByUser(currentUser, pageable);
+        return transfers.map(this::mapToDTO);
     }
 
-    public Page<TransferDTO> getTransfersByCardId(Long cardId, Pageable pageable) {
+    /**
+     * withTotal = false: без COUNT, результат - Slice с признаком hasNext
+     */
+    public Slice<TransferDTO> getTransfersByCardId(Long cardId, Pageable pageable, boolean withTotal) {
         User currentUser = userService.getCurrentUser();
-        
+
+        // Проверяем, что карта принадлежит пользователю
+        Card card = cardService.getCardEntity(cardId);
+        if (!card.getOwner().getId().equals(currentUser.getId())) {
+            throw new UnauthorizedException("You don't have access to this card");
+        }
+
+        if (withTotal) {
+            List<TransferDTO> content = findCardHistory(cardId, currentUser.getId(), pageable, pageable.getPageSize());
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> transferRepository.countCardHistory(cardId, currentUser.getId()));
+        }
+
+        // Лишняя строка вместо COUNT показывает, есть ли следующая страница
+        int size = pageable.getPageSize();
+        List<TransferDTO> content = findCardHistory(cardId, currentUser.getId(), pageable, size + 1);
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, pageable, hasNext);
+    }
+
+    private List<TransferDTO> findCardHistory(Long cardId, Long userId, Pageable pageable, int limit) {
+        // Всегда новые сначала: порядок задан индексами (card_id, transfer_date), сортировка из pageable не применяется
+        long scanLimit = pageable.getOffset() + limit;
+        return loadWithCards(transferRepository.findCardHistory(cardId, userId, scanLimit, limit, pageable.getOffset()))
+                .stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Переводы с картами одним запросом в порядке истории
+    private List<Transfer> loadWithCards(List<TransferRepository.TransferIdRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = rows.stream().map(TransferRepository.TransferIdRow::getId).collect(Collectors.toList());
+        return transferRepository.findAllWithCardsByIdIn(ids);
+    }
+
+    /**
+     * История переводов с keyset-пагинацией: глубокие страницы стоят столько же, сколько первая.
+     * cursor - значение nextCursor из предыдущей страницы, null для первой.
+     */
+    public CursorPage<TransferDTO> getUserTransfers(String cursor, int size) {
+        User currentUser = userService.getCurrentUser();
+        Pageable limit = cursorLimit(size);
+
+        Slice<Transfer> slice;
+        if (cursor == null) {
+            slice = transferRepository.findFirstSliceByUserId(currentUser.getId(), limit);
+        } else {
+            Transfer position = decodeCursor(cursor);
+            slice = transferRepository.findSliceByUserIdAfter(
+                    currentUser.getId(), position.getTransferDate(), position.getId(), limit);
+        }
+        return toCursorPage(slice);
+    }
+
+    public CursorPage<TransferDTO> getTransfersByCardId(Long cardId, String cursor, int size) {
+        User currentUser = userService.getCurrentUser();
+        Pageable limit = cursorLimit(size);
+
         // Проверяем, что карта принадлежит пользователю
         Card card = cardService.getCardEntity(cardId);
         if (!card.getOwner().getId().equals(currentUser.getId())) {
             throw new UnauthorizedException("You don't have access to this card");
         }
 
-        return transferRepository.findByCardIdAndUserId(cardId, currentUser.getId(), pageable)
-                .map(this::mapToDTO);
+        // Лишняя строка показывает, есть ли следующая страница
+        int rows = limit.getPageSize() + 1;
+        List<TransferRepository.TransferIdRow> ids;
+        if (cursor == null) {
+            ids = transferRepository.findCardHistory(cardId, currentUser.getId(), rows, rows, 0);
+        } else {
+            Transfer position = decodeCursor(cursor);
+            ids = transferRepository.findCardHistoryAfter(
+                    cardId, currentUser.getId(), position.getTransferDate(), position.getId(), rows);
+        }
+        List<Transfer> transfers = loadWithCards(ids);
+        boolean hasNext = transfers.size() > limit.getPageSize();
+        return toCursorPage(new SliceImpl<>(
+                hasNext ? transfers.subList(0, limit.getPageSize()) : transfers, limit, hasNext));
     }
 
     public List<TransferDTO> getTransfersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
@@ -143,6 +331,22 @@ public class TransferService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Потоковый экспорт переводов за период (NDJSON или CSV) без загрузки всего периода в память.
+     * Диапазон проверяется и пользователь определяется сразу, в потоке запроса: ошибка уходит
+     * обычным ответом 400/401, а не обрывом уже начатого потока. Возвращенная выгрузка пишет
+     * данные позже, в потоке ответа, где SecurityContext запроса уже недоступен.
+     */
+    public TransferExporter.Export exportTransfersByDateRange(LocalDateTime startDate, LocalDateTime endDate,
+                                                              TransferExporter.Format format) {
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date must not be after end date");
+        }
+
+        Long userId = userService.getCurrentUser().getId();
+        return out -> transferExporter.export(userId, startDate, endDate, format, out);
+    }
+
     public List<TransferDTO> getTransfersByStatus(TransferStatus status) {
         User currentUser = userService.getCurrentUser();
         
@@ -152,14 +356,99 @@ public class TransferService {
                 .collect(Collectors.toList());
     }
 
-    private TransferDTO mapToDTO(Transfer transfer) {
-        String fromCardDecrypted = encryptionUtil.decrypt(transfer.getFromCard().getCardNumber());
-        String toCardDecrypted = encryptionUtil.decrypt(transfer.getToCard().getCardNumber());
+    private Pageable cursorLimit(int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        return PageRequest.of(0, size);
+    }
+
+    private CursorPage<TransferDTO> toCursorPage(Slice<Transfer> slice) {
+        List<Transfer> transfers = slice.getContent();
+        String nextCursor = slice.hasNext() ? encodeCursor(transfers.get(transfers.size() - 1)) : null;
+
+        return CursorPage.<TransferDTO>builder()
+                .content(transfers.stream().map(this::mapToDTO).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasNext(slice.hasNext())
+                .build();
+    }
+
+    // Курсор - позиция последнего перевода страницы (transfer_date, id), непрозрачная для клиента
+    private String encodeCursor(Transfer transfer) {
+        String position = transfer.getTransferDate() + "|" + transfer.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Transfer decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            return Transfer.builder()
+                    .transferDate(LocalDateTime.parse(position.substring(0, separator)))
+                    .id(Long.parseLong(position.substring(separator + 1)))
+                    .build();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    // Заблокированы только карты текущего пользователя: карты нет в выборке - она чужая или не существует.
+    // Чужая карта читается без блокировки только ради ответа (getCardEntity бросает 404 для несуществующей)
+    private Card getLockedFromCard(Map<Long, Card> cards, Long id) {
+        Card card = cards.get(id);
+        if (card == null) {
+            cardService.getCardEntity(id);
+            throw new UnauthorizedException("Source card does not belong to you");
+        }
+        return card;
+    }
 
+    private Card getLockedToCard(Map<Long, Card> cards, Long id) {
+        Card card = cards.get(id);
+        if (card == null) {
+            cardService.getCardEntity(id);
+            throw new BadRequestException("You can only transfer between your own cards");
+        }
+        return card;
+    }
+
+    // Владелец карт уже проверен выборкой с блокировкой
+    private void validateTransfer(Card fromCard, Card toCard, BigDecimal amount) {
+        // Проверяем статусы карт
+        if (fromCard.getStatus() != CardStatus.ACTIVE) {
+            throw new BadRequestException("Source card is not active");
+        }
+
+        if (toCard.getStatus() != CardStatus.ACTIVE) {
+            throw new BadRequestException("Destination card is not active");
+        }
+
+        // Проверяем, не истек ли срок карт
+        if (fromCard.isExpired()) {
+            throw new BadRequestException("Source card has expired");
+        }
+
+        if (toCard.isExpired()) {
+            throw new BadRequestException("Destination card has expired");
+        }
+
+        // Проверяем сумму
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BadRequestException("Transfer amount must be positive");
+        }
+
+        // Проверяем баланс
+        if (fromCard.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException("Insufficient funds on the source card");
+        }
+    }
+
+    private TransferDTO mapToDTO(Transfer transfer) {
         return TransferDTO.builder()
                 .id(transfer.getId())
-                .fromCardMasked(cardMaskingUtil.maskCardNumber(fromCardDecrypted))
-                .toCardMasked(cardMaskingUtil.maskCardNumber(toCardDecrypted))
+                .fromCardMasked(cardMaskingUtil.maskLastFour(transfer.getFromCard().getCardLast4()))
+                .toCardMasked(cardMaskingUtil.maskLastFour(transfer.getToCard().getCardLast4()))
                 .amount(transfer.getAmount())
                 .transferDate(transfer.getTransferDate())
                 .status(transfer.getStatus())
@@ -1,29 +1,59 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CacheStatsDTO;
 import com.example.bankcards.dto.UserDTO;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenVersionStore;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
+    private final CardRepository cardRepository;
     private final PasswordEncoder passwordEncoder;
-
+    private final TokenVersionStore tokenVersionStore;
+    private final CurrentUserCache currentUserCache;
+    private final DashboardStatsStore dashboardStatsStore;
+
+    /**
+     * Текущий пользователь из кэша (см. CurrentUserCache). Возвращаемый объект
+     * отсоединен от сессии и общий для запросов - изменять его нельзя.
+     */
+    @Timed("bank.users.current")
     public User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return currentUserCache.get(authentication.getName(), () -> loadCurrentUser(authentication));
+    }
+
+    public CacheStatsDTO getCurrentUserCacheStats() {
+        return currentUserCache.getStats();
+    }
+
+    private User loadCurrentUser(Authentication authentication) {
+        // Пользователь из JWT несет id, поэтому читаем по первичному ключу
+        if (authentication.getPrincipal() instanceof User principal && principal.getId() != null) {
+            return userRepository.findById(principal.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        }
+
         String username = authentication.getName();
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
@@ -40,8 +70,22 @@ public class UserService {
         return mapToDTO(user);
     }
 
-    public Page<UserDTO> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable).map(this::mapToDTO);
+    /**
+     * withTotal = false: без COUNT, результат - Slice с признаком hasNext
+     */
+    public Slice<UserDTO> getAllUsers(Pageable pageable, boolean withTotal) {
+        Slice<User> users = withTotal ? userRepository.findAll(pageable) : userRepository.findAllAsSlice(pageable);
+        Map<Long, Long> cardsCounts = countCards(users);
+        return users.map(user -> mapToDTO(user, cardsCounts.getOrDefault(user.getId(), 0L)));
+    }
+
+    // Количество карт для всей страницы одним запросом, коллекции cards не загружаются
+    private Map<Long, Long> countCards(Slice<User> users) {
+        return users.isEmpty()
+                ? Map.of()
+                : cardRepository.countByUserIds(users.map(User::getId).getContent()).stream()
+                        .collect(Collectors.toMap(CardRepository.OwnerCardsCount::getOwnerId,
+                                CardRepository.OwnerCardsCount::getCardsCount));
     }
 
     @Transactional
@@ -65,12 +109,15 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        currentUserCache.evict(user.getUsername());
         return mapToDTO(updatedUser);
     }
 
     @Transactional
     public void changePassword(String oldPassword, String newPassword) {
-        User user = getCurrentUser();
+        // Изменяем свежую копию, а не закэшированного пользователя
+        User user = userRepository.findById(getCurrentUser().getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
             throw new BadRequestException("Current password is incorrect");
@@ -82,6 +129,7 @@ public class UserService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        currentUserCache.evict(user.getUsername());
     }
 
     @Transactional
@@ -90,6 +138,7 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
         
         user.setActive(false);
+        revokeTokens(user);
         userRepository.save(user);
     }
 
@@ -100,14 +149,17 @@ public class UserService {
         
         user.setActive(true);
         userRepository.save(user);
+        currentUserCache.evict(user.getUsername());
     }
 
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User", "id", id);
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+        userRepository.delete(user);
+        tokenVersionStore.evict(id);
+        currentUserCache.evict(user.getUsername());
+        dashboardStatsStore.invalidate(); // вместе с пользователем удалены его карты и переводы
     }
 
     @Transactional
@@ -116,6 +168,7 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
         
         user.setRole(Role.ADMIN);
+        revokeTokens(user); // роль хранится в токене
         User updatedUser = userRepository.save(user);
         return mapToDTO(updatedUser);
     }
@@ -126,11 +179,23 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
         
         user.setRole(Role.USER);
+        revokeTokens(user); // роль хранится в токене
         User updatedUser = userRepository.save(user);
         return mapToDTO(updatedUser);
     }
 
+    // Выданные токены перестают приниматься; пользователь получает новые при следующем входе
+    private void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        tokenVersionStore.evict(user.getId());
+        currentUserCache.evict(user.getUsername());
+    }
+
     private UserDTO mapToDTO(User user) {
+        return mapToDTO(user, cardRepository.countByUserId(user.getId()));
+    }
+
+    private UserDTO mapToDTO(User user, long cardsCount) {
         return UserDTO.builder()
                 .id(user.getId())
                 .username(user.getUsername())
@@ -140,7 +205,7 @@ public class UserService {
                 .role(user.getRole())
                 .isActive(user.isActive())
                 .createdAt(user.getCreatedAt())
-                .cardsCount(user.getCards() != null ? user.getCards().size() : 0)
+                .cardsCount((int) cardsCount)
                 .build();
     }
 }
\ No newline at end of file
@@ -2,87 +2,175 @@ package com.example.bankcards.util;
 
 import org.springframework.stereotype.Component;
 
+import java.nio.CharBuffer;
+
+/**
+ * Маска, форматирование и проверка номеров карт. Методы сканируют символы напрямую:
+ * без регулярных выражений и промежуточных строк, пробельные символы (как \s) пропускаются.
+ * Перегрузки с char[] позволяют не создавать String с номером карты вовсе.
+ */
 @Component
 public class CardMaskingUtil {
 
+    private static final String MASK_PREFIX = "**** **** **** ";
+    private static final int CARD_NUMBER_LENGTH = 16;
+
     /**
      * Маскирует номер карты, показывая только последние 4 цифры
      * Пример: 1234567890123456 -> **** **** **** 3456
      */
-    public String maskCardNumber(String cardNumber) {
+    public String maskCardNumber(CharSequence cardNumber) {
         if (cardNumber == null || cardNumber.length() < 4) {
             return "****";
         }
 
-        // Убираем все пробелы если есть
-        String cleanNumber = cardNumber.replaceAll("\\s+", "");
-        
-        if (cleanNumber.length() != 16) {
-            return "**** **** **** " + cleanNumber.substring(Math.max(0, cleanNumber.length() - 4));
+        char[] masked = new char[MASK_PREFIX.length() + 4];
+        MASK_PREFIX.getChars(0, MASK_PREFIX.length(), masked, 0);
+        int lastFourLength = copyLastFour(cardNumber, masked, MASK_PREFIX.length());
+        return new String(masked, 0, MASK_PREFIX.length() + lastFourLength);
+    }
+
+    public String maskCardNumber(char[] cardNumber) {
+        return maskCardNumber(wrap(cardNumber));
+    }
+
+    /**
+     * Строит маску по уже известным последним 4 цифрам (без расшифровки номера)
+     * Пример: 3456 -> **** **** **** 3456
+     */
+    public String maskLastFour(String lastFour) {
+        if (lastFour == null || lastFour.isEmpty()) {
+            return "****";
         }
+        return MASK_PREFIX + lastFour;
+    }
 
-        // Берем последние 4 цифры
-        String lastFour = cleanNumber.substring(12);
-        
-        return "**** **** **** " + lastFour;
+    /**
+     * Возвращает последние 4 цифры номера карты
+     * Пример: 1234 5678 9012 3456 -> 3456
+     */
+    public String getLastFour(CharSequence cardNumber) {
+        char[] lastFour = new char[4];
+        int length = copyLastFour(cardNumber, lastFour, 0);
+        return new String(lastFour, 0, length);
+    }
+
+    public String getLastFour(char[] cardNumber) {
+        return getLastFour(wrap(cardNumber));
     }
 
     /**
      * Форматирует номер карты с пробелами
      * Пример: 1234567890123456 -> 1234 5678 9012 3456
      */
-    public String formatCardNumber(String cardNumber) {
-        if (cardNumber == null || cardNumber.isEmpty()) {
+    public String formatCardNumber(CharSequence cardNumber) {
+        if (cardNumber == null || cardNumber.length() == 0) {
             return "";
         }
 
-        String cleanNumber = cardNumber.replaceAll("\\s+", "");
-        
-        if (cleanNumber.length() != 16) {
-            return cleanNumber;
+        int digits = countNonWhitespace(cardNumber);
+        if (digits == cardNumber.length() && digits != CARD_NUMBER_LENGTH) {
+            return cardNumber.toString();
         }
 
-        return cleanNumber.substring(0, 4) + " " +
-               cleanNumber.substring(4, 8) + " " +
-               cleanNumber.substring(8, 12) + " " +
-               cleanNumber.substring(12);
+        // 16 символов - группы по 4 через пробел, иначе номер без пробельных символов
+        boolean grouped = digits == CARD_NUMBER_LENGTH;
+        char[] formatted = new char[grouped ? CARD_NUMBER_LENGTH + 3 : digits];
+        int position = 0;
+        int written = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (isWhitespace(c)) {
+                continue;
+            }
+            if (grouped && written > 0 && written % 4 == 0) {
+                formatted[position++] = ' ';
+            }
+            formatted[position++] = c;
+            written++;
+        }
+        return new String(formatted);
+    }
+
+    public String formatCardNumber(char[] cardNumber) {
+        return formatCardNumber(wrap(cardNumber));
     }
 
     /**
-     * Проверяет валидность номера карты по алгоритму Luhn
+     * Проверяет валидность номера карты по алгоритму Luhn: ровно 16 цифр 0-9,
+     * пробельные символы между ними допускаются
      */
-    public boolean isValidCardNumber(String cardNumber) {
+    public boolean isValidCardNumber(CharSequence cardNumber) {
         if (cardNumber == null) {
             return false;
         }
 
-        String cleanNumber = cardNumber.replaceAll("\\s+", "");
-        
-        if (cleanNumber.length() != 16 || !cleanNumber.matches("\\d+")) {
-            return false;
-        }
-
-        return luhnCheck(cleanNumber);
-    }
-
-    private boolean luhnCheck(String cardNumber) {
         int sum = 0;
-        boolean alternate = false;
-        
+        int digits = 0;
         for (int i = cardNumber.length() - 1; i >= 0; i--) {
-            int digit = Character.getNumericValue(cardNumber.charAt(i));
-            
-            if (alternate) {
+            char c = cardNumber.charAt(i);
+            if (isWhitespace(c)) {
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digits > CARD_NUMBER_LENGTH) {
+                return false;
+            }
+
+            // Каждая вторая цифра справа удваивается
+            int digit = c - '0';
+            if (digits % 2 == 0) {
                 digit *= 2;
                 if (digit > 9) {
                     digit -= 9;
                 }
             }
-            
             sum += digit;
-            alternate = !alternate;
         }
-        
-        return (sum % 10 == 0);
+
+        return digits == CARD_NUMBER_LENGTH && sum % 10 == 0;
+    }
+
+    public boolean isValidCardNumber(char[] cardNumber) {
+        return isValidCardNumber(wrap(cardNumber));
+    }
+
+    // Копирует до 4 последних непробельных символов в target с позиции offset, возвращает их количество
+    private int copyLastFour(CharSequence cardNumber, char[] target, int offset) {
+        int found = 0;
+        int start = cardNumber.length();
+        for (int i = cardNumber.length() - 1; i >= 0 && found < 4; i--) {
+            if (!isWhitespace(cardNumber.charAt(i))) {
+                found++;
+                start = i;
+            }
+        }
+
+        int position = offset;
+        for (int i = start; position < offset + found; i++) {
+            char c = cardNumber.charAt(i);
+            if (!isWhitespace(c)) {
+                target[position++] = c;
+            }
+        }
+        return found;
+    }
+
+    private int countNonWhitespace(CharSequence cardNumber) {
+        int count = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            if (!isWhitespace(cardNumber.charAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Тот же набор, что \s в java.util.regex: пробел, \t, \n, \u000B, \f, \r
+    static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static CharSequence wrap(char[] cardNumber) {
+        return cardNumber != null ? CharBuffer.wrap(cardNumber) : null;
     }
-}
\ No newline at end of file
+}
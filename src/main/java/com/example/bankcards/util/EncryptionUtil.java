@@ -1,12 +1,18 @@
 package com.example.bankcards.util;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
-import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 
 @Component
 public class EncryptionUtil {
@@ -14,31 +20,126 @@ public class EncryptionUtil {
     private static final String ALGORITHM = "AES";
     // В production это должно храниться в безопасном месте (например, AWS Secrets Manager)
     private static final String SECRET_KEY = "MySuperSecretKey123456789012"; // 32 bytes для AES-256
+    private static final String HASH_ALGORITHM = "HmacSHA256";
+    // Отдельный ключ для хеша номера карты: утечка одного ключа не раскрывает другой
+    private static final String HASH_SECRET_KEY = "MyCardNumberHashKey1234567890123";
 
-    private SecretKey getKey() {
-        byte[] keyBytes = SECRET_KEY.getBytes();
-        return new SecretKeySpec(keyBytes, 0, 16, ALGORITHM); // используем первые 16 байт для AES-128
-    }
+    // Ключ строится один раз; используем первые 16 байт для AES-128
+    private final SecretKey key = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), 0, 16, ALGORITHM);
+
+    // Cipher и Mac не потокобезопасны, поэтому экземпляр берется из пула на время одного вызова.
+    // Не ThreadLocal: запросы выполняются в виртуальных потоках, новый поток на каждый запрос,
+    // и кэш на поток создавал бы шифр заново. Пул растет до числа одновременных вызовов.
+    // Экземпляр инициализируется один раз: после doFinal он возвращается в исходное состояние.
+    private final Queue<Cipher> encryptCiphers = new ConcurrentLinkedQueue<>();
+    private final Queue<Cipher> decryptCiphers = new ConcurrentLinkedQueue<>();
+    private final Queue<Mac> hashMacs = new ConcurrentLinkedQueue<>();
 
+    @Timed("bank.encryption")
     public String encrypt(String data) {
+        return Base64.getEncoder().encodeToString(encrypt(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Timed("bank.encryption")
+    public String decrypt(String encryptedData) {
+        return new String(decrypt(Base64.getDecoder().decode(encryptedData)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Шифрует сырые байты без промежуточных String и Base64
+     */
+    @Timed("bank.encryption")
+    public byte[] encrypt(byte[] data) {
+        Cipher cipher = take(encryptCiphers, () -> createCipher(Cipher.ENCRYPT_MODE));
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, getKey());
-            byte[] encryptedBytes = cipher.doFinal(data.getBytes());
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+            byte[] result = cipher.doFinal(data);
+            encryptCiphers.offer(cipher); // после ошибки состояние шифра не гарантировано, в пул не возвращаем
+            return result;
         } catch (Exception e) {
             throw new RuntimeException("Error encrypting data", e);
         }
     }
 
-    public String decrypt(String encryptedData) {
+    /**
+     * Расшифровывает сырые байты без промежуточных String и Base64
+     */
+    @Timed("bank.encryption")
+    public byte[] decrypt(byte[] encryptedData) {
+        Cipher cipher = take(decryptCiphers, () -> createCipher(Cipher.DECRYPT_MODE));
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, getKey());
-            byte[] decryptedBytes = cipher.doFinal(Base64.getDecoder().decode(encryptedData));
-            return new String(decryptedBytes);
+            byte[] result = cipher.doFinal(encryptedData);
+            decryptCiphers.offer(cipher);
+            return result;
         } catch (Exception e) {
             throw new RuntimeException("Error decrypting data", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Детерминированный хеш номера карты (HMAC-SHA256, hex) для проверки уникальности и поиска.
+     * Пробелы в номере игнорируются, поэтому "4532 0151 1283 0366" и "4532015112830366" совпадают.
+     */
+    public String hashCardNumber(String cardNumber) {
+        byte[] data = new byte[cardNumber.length()];
+        int length = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (CardMaskingUtil.isWhitespace(c)) {
+                continue;
+            }
+            if (c >= 0x80) {
+                // Не ASCII: байты UTF-8 те же, что у строки без пробельных символов
+                data = stripWhitespace(cardNumber).getBytes(StandardCharsets.UTF_8);
+                length = data.length;
+                break;
+            }
+            data[length++] = (byte) c;
+        }
+
+        Mac mac = take(hashMacs, this::createMac);
+        try {
+            mac.update(data, 0, length);
+            String hash = HexFormat.of().formatHex(mac.doFinal());
+            hashMacs.offer(mac);
+            return hash;
+        } catch (Exception e) {
+            throw new RuntimeException("Error hashing card number", e);
+        }
+    }
+
+    private static String stripWhitespace(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!CardMaskingUtil.isWhitespace(c)) {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static <T> T take(Queue<T> pool, Supplier<T> factory) {
+        T instance = pool.poll();
+        return instance != null ? instance : factory.get();
+    }
+
+    private Cipher createCipher(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(mode, key);
+            return cipher;
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing cipher", e);
+        }
+    }
+
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(HASH_ALGORITHM);
+            mac.init(new SecretKeySpec(HASH_SECRET_KEY.getBytes(StandardCharsets.UTF_8), HASH_ALGORITHM));
+            return mac;
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing MAC", e);
+        }
+    }
+}
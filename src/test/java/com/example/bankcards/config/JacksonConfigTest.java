@@ -0,0 +1,76 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.entity.TransferStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Компактный вывод и Blackbird не меняют содержимое ответа, только форматирование.
+ */
+class JacksonConfigTest {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final JacksonConfig jacksonConfig = new JacksonConfig();
+
+    @Test
+    void testCompactBlackbirdOutput_SameTreeAsIndented() throws Exception {
+        ObjectMapper indented = jacksonConfig.objectMapper(true, false);
+        ObjectMapper compact = jacksonConfig.objectMapper(false, true);
+        PageImpl<TransferDTO> page = transferPage();
+
+        String indentedJson = indented.writeValueAsString(page);
+        String compactJson = compact.writeValueAsString(page);
+
+        assertEquals(indented.readTree(indentedJson), compact.readTree(compactJson));
+        assertFalse(compactJson.contains("\n"), "compact output must not be indented");
+        assertTrue(compactJson.length() < indentedJson.length());
+    }
+
+    @Test
+    void testBlackbird_SameBytesAsReflection() throws Exception {
+        PageImpl<TransferDTO> page = transferPage();
+
+        assertArrayEquals(jacksonConfig.objectMapper(false, false).writeValueAsBytes(page),
+                jacksonConfig.objectMapper(false, true).writeValueAsBytes(page));
+    }
+
+    @Test
+    void testDatesWrittenAsIsoStrings() throws Exception {
+        TransferDTO transfer = TransferDTO.builder()
+                .id(1L)
+                .transferDate(LocalDateTime.of(2024, 1, 17, 10, 30))
+                .build();
+
+        String json = jacksonConfig.objectMapper(false, true).writeValueAsString(transfer);
+
+        assertTrue(json.contains("\"transferDate\":\"2024-01-17T10:30:00\""), json);
+    }
+
+    private PageImpl<TransferDTO> transferPage() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 17, 12, 0);
+        List<TransferDTO> content = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            content.add(TransferDTO.builder()
+                    .id((long) i)
+                    .fromCardMasked("**** **** **** 0366")
+                    .toCardMasked("**** **** **** 2832")
+                    .amount(new BigDecimal("125.50"))
+                    .transferDate(now.minusMinutes(i))
+                    .status(TransferStatus.COMPLETED)
+                    .description(i % 2 == 0 ? "Transfer " + i : null)
+                    .build());
+        }
+        return new PageImpl<>(content, PageRequest.of(0, PAGE_SIZE), 10_000);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.bankcards.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Журнал SQL на подставленном времени выполнения: порог медленных запросов, доля выборки
+ * остальных и обертка DataSource только при включенном журнале.
+ */
+class SqlLogListenerTest {
+
+    private static final String SQL = "SELECT * FROM cards WHERE id = ? AND user_id = ?";
+
+    private final Logger slowLog = (Logger) LoggerFactory.getLogger("bank.sql.slow");
+    private final Logger sampleLog = (Logger) LoggerFactory.getLogger("bank.sql.sample");
+    private final ListAppender<ILoggingEvent> slowEvents = new ListAppender<>();
+    private final ListAppender<ILoggingEvent> sampleEvents = new ListAppender<>();
+
+    @BeforeEach
+    void attachAppenders() {
+        slowEvents.start();
+        sampleEvents.start();
+        slowLog.addAppender(slowEvents);
+        sampleLog.addAppender(sampleEvents);
+        // Тысячи строк выборки не нужны в выводе тестов
+        slowLog.setAdditive(false);
+        sampleLog.setAdditive(false);
+    }
+
+    @AfterEach
+    void detachAppenders() {
+        slowLog.detachAppender(slowEvents);
+        sampleLog.detachAppender(sampleEvents);
+        slowLog.setAdditive(true);
+        sampleLog.setAdditive(true);
+    }
+
+    @Test
+    void testSlowThreshold_Inclusive() throws Exception {
+        SqlLogListener listener = new SqlLogListener(200, 0);
+
+        listener.afterQuery(execution(199), queries());
+        assertTrue(slowEvents.list.isEmpty());
+
+        listener.afterQuery(execution(200), queries());
+        listener.afterQuery(execution(5000), queries());
+        assertEquals(2, slowEvents.list.size());
+        assertTrue(sampleEvents.list.isEmpty());
+
+        ILoggingEvent event = slowEvents.list.get(0);
+        assertEquals(Level.WARN, event.getLevel());
+        assertEquals("Slow query: 200 ms, 2 params, batch 0, success true: " + SQL, event.getFormattedMessage());
+    }
+
+    @Test
+    void testParameterValues_NotLogged() throws Exception {
+        new SqlLogListener(0, 0).afterQuery(execution(1), queries());
+
+        assertFalse(slowEvents.list.get(0).getFormattedMessage().contains("4111111111111111"));
+    }
+
+    @Test
+    void testSampleRate() throws Exception {
+        new SqlLogListener(200, 0).afterQuery(execution(10), queries());
+        assertTrue(sampleEvents.list.isEmpty());
+
+        SqlLogListener everyQuery = new SqlLogListener(200, 1.0);
+        for (int i = 0; i < 100; i++) {
+            everyQuery.afterQuery(execution(10), queries());
+        }
+        assertEquals(100, sampleEvents.list.size());
+        assertEquals(Level.INFO, sampleEvents.list.get(0).getLevel());
+        assertEquals("Query: 10 ms, 2 params, batch 0: " + SQL, sampleEvents.list.get(0).getFormattedMessage());
+
+        // Половина из 10000: стандартное отклонение 50, допуск 10 отклонений
+        sampleEvents.list.clear();
+        SqlLogListener half = new SqlLogListener(200, 0.5);
+        for (int i = 0; i < 10_000; i++) {
+            half.afterQuery(execution(10), queries());
+        }
+        assertTrue(Math.abs(sampleEvents.list.size() - 5000) < 500, "sampled " + sampleEvents.list.size());
+        assertTrue(slowEvents.list.isEmpty());
+    }
+
+    @Test
+    void testPostProcessor_WrapsOnlyWhenEnabled() {
+        DataSource dataSource = mock(DataSource.class);
+
+        Object disabled = new SqlLogDataSourcePostProcessor(false, Duration.ofMillis(200), 0)
+                .postProcessAfterInitialization(dataSource, "dataSource");
+        assertSame(dataSource, disabled);
+
+        SqlLogDataSourcePostProcessor enabled = new SqlLogDataSourcePostProcessor(true, Duration.ofMillis(200), 0);
+        Object wrapped = enabled.postProcessAfterInitialization(dataSource, "dataSource");
+        assertInstanceOf(ProxyDataSource.class, wrapped);
+        assertSame(wrapped, enabled.postProcessAfterInitialization(wrapped, "dataSource")); // без двойной обертки
+        assertSame(this, enabled.postProcessAfterInitialization(this, "other"));
+    }
+
+    private static ExecutionInfo execution(long elapsedMs) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setElapsedTime(elapsedMs);
+        execInfo.setSuccess(true);
+        return execInfo;
+    }
+
+    private static List<QueryInfo> queries() throws Exception {
+        QueryInfo queryInfo = new QueryInfo(SQL);
+        queryInfo.getParametersList().add(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                        new Object[]{1, "4111111111111111"}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setLong", int.class, long.class),
+                        new Object[]{2, 42L})));
+        return List.of(queryInfo);
+    }
+}
@@ -4,13 +4,18 @@ import com.example.bankcards.dto.AuthenticationRequest;
 import com.example.bankcards.dto.AuthenticationResponse;
 import com.example.bankcards.dto.RegisterRequest;
 import com.example.bankcards.service.AuthenticationService;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenVersionStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -20,6 +25,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(AuthController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import(SimpleMeterRegistry.class) // реестр метрик для GlobalExceptionHandler: в срезе @WebMvcTest его нет
 class AuthControllerTest {
 
     @Autowired
@@ -31,6 +37,16 @@ class AuthControllerTest {
     @MockBean
     private AuthenticationService authenticationService;
 
+    // Зависимости JwtAuthenticationFilter: сам фильтр отключен (addFilters = false), но бин создается
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenVersionStore tokenVersionStore;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
     @Test
     void testRegister_Success() throws Exception {
         RegisterRequest request = RegisterRequest.builder()
@@ -2,23 +2,34 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDTO;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenVersionStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -26,6 +37,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(CardController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import(SimpleMeterRegistry.class) // реестр метрик для GlobalExceptionHandler: в срезе @WebMvcTest его нет
 class CardControllerTest {
 
     @Autowired
@@ -34,9 +46,22 @@ class CardControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private CardService cardService;
 
+    // Зависимости JwtAuthenticationFilter: сам фильтр отключен (addFilters = false), но бин создается
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenVersionStore tokenVersionStore;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
     @Test
     void testGetCardById_Success() throws Exception {
         CardDTO cardDTO = CardDTO.builder()
@@ -58,6 +83,19 @@ class CardControllerTest {
                 .andExpect(jsonPath("$.status").value("ACTIVE"));
     }
 
+    @Test
+    void testGetCardById_NotFound_CountedByResource() throws Exception {
+        when(cardService.getCardById(42L)).thenThrow(new ResourceNotFoundException("Card", "id", 42L));
+
+        mockMvc.perform(get("/api/cards/42"))
+                .andExpect(status().isNotFound());
+
+        // Тег resource - корневой путь контроллера, без id
+        assertEquals(1.0, meterRegistry.get("bank.api.errors")
+                .tags("exception", "ResourceNotFoundException", "resource", "cards")
+                .counter().count());
+    }
+
     @Test
     void testGetMyCards_Success() throws Exception {
         CardDTO card1 = CardDTO.builder()
@@ -78,12 +116,35 @@ class CardControllerTest {
 
         Page<CardDTO> page = new PageImpl<>(List.of(card1, card2), PageRequest.of(0, 10), 2);
 
-        when(cardService.getUserCards(any())).thenReturn(page);
+        when(cardService.getUserCards(any(), eq(true))).thenReturn(page);
 
         mockMvc.perform(get("/api/cards/my"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content.length()").value(2))
-                .andExpect(jsonPath("$.content[0].maskedCardNumber").value("**** **** **** 1234"));
+                .andExpect(jsonPath("$.content[0].maskedCardNumber").value("**** **** **** 1234"))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.pageable").doesNotExist());
+    }
+
+    @Test
+    void testGetMyCards_WithoutTotal() throws Exception {
+        CardDTO card = CardDTO.builder()
+                .id(1L)
+                .maskedCardNumber("**** **** **** 1234")
+                .status(CardStatus.ACTIVE)
+                .build();
+
+        Slice<CardDTO> slice = new SliceImpl<>(List.of(card), PageRequest.of(0, 1), true);
+
+        when(cardService.getUserCards(any(), eq(false))).thenReturn(slice);
+
+        mockMvc.perform(get("/api/cards/my").param("withTotal", "false").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
     }
 
     @Test
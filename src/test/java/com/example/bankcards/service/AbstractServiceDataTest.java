@@ -0,0 +1,126 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestConfig;
+import com.example.bankcards.config.JacksonConfig;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenVersionStore;
+import com.example.bankcards.util.CardMaskingUtil;
+import com.example.bankcards.util.CardNumberGenerator;
+import com.example.bankcards.util.EncryptionUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Общая основа тестов сервисов на H2: один набор бинов, поэтому все наследники работают
+ * в одном кэшированном контексте Spring и одной базе. Перед каждым тестом таблицы очищаются,
+ * агрегаты панели сбрасываются; методы create* собирают данные для тестов.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransferService.class, TransferIdempotencyStore.class, TransferExporter.class, DashboardStatsStore.class,
+        CardService.class, CardExpirySweeper.class, UserService.class, CurrentUserCache.class,
+        TokenVersionStore.class, EncryptionUtil.class, CardMaskingUtil.class, CardNumberGenerator.class,
+        JacksonConfig.class, TestConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class AbstractServiceDataTest {
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected CardRepository cardRepository;
+
+    @Autowired
+    protected TransferRepository transferRepository;
+
+    @Autowired
+    protected EncryptionUtil encryptionUtil;
+
+    @Autowired
+    protected DashboardStatsStore dashboardStatsStore;
+
+    @BeforeEach
+    void cleanDatabase() {
+        transferRepository.deleteAllInBatch();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+        dashboardStatsStore.invalidate(); // агрегаты из предыдущего теста
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    protected User createUser(String username) {
+        return createUser(username, null, null);
+    }
+
+    protected User createUser(String username, String firstName, String lastName) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("encoded-password")
+                .firstName(firstName)
+                .lastName(lastName)
+                .role(Role.USER)
+                .isActive(true)
+                .build());
+    }
+
+    /**
+     * Активная карта без настоящего шифрования: номер и hash - заглушки по последним цифрам
+     */
+    protected Card.CardBuilder card(User owner, String last4) {
+        return Card.builder()
+                .cardNumber("encrypted-" + last4)
+                .cardNumberHash("hash-" + last4)
+                .cardLast4(last4)
+                .cardHolder(owner.getUsername().toUpperCase())
+                .expiryDate(LocalDate.now().plusYears(3))
+                .status(CardStatus.ACTIVE)
+                .balance(BigDecimal.valueOf(1000.00))
+                .owner(owner);
+    }
+
+    /**
+     * Активная карта с зашифрованным номером, как ее сохраняет CardService
+     */
+    protected Card.CardBuilder encryptedCard(User owner, String number) {
+        return card(owner, number.substring(12))
+                .cardNumber(encryptionUtil.encrypt(number))
+                .cardNumberHash(encryptionUtil.hashCardNumber(number));
+    }
+
+    protected Card createCard(User owner, String last4) {
+        return cardRepository.save(card(owner, last4).build());
+    }
+
+    protected Card createEncryptedCard(User owner, String number) {
+        return cardRepository.save(encryptedCard(owner, number).build());
+    }
+
+    protected void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, user.getAuthorities()));
+    }
+}
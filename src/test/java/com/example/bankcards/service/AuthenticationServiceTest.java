@@ -39,6 +39,9 @@ class AuthenticationServiceTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private DashboardStatsStore dashboardStatsStore;
+
     @InjectMocks
     private AuthenticationService authenticationService;
 
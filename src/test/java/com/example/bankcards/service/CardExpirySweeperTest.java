@@ -0,0 +1,76 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.ExpirySweepDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardExpirySweeperTest extends AbstractServiceDataTest {
+
+    @Autowired
+    private CardExpirySweeper cardExpirySweeper;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = createUser("sweepuser");
+    }
+
+    @Test
+    void testSweep_ExpiresPastDueCardsInBatches() {
+        LocalDate today = LocalDate.now();
+        Card expiredActive1 = createCard("0001", today.minusDays(1), CardStatus.ACTIVE);
+        Card expiredActive2 = createCard("0002", today.minusMonths(1), CardStatus.ACTIVE);
+        Card expiredActive3 = createCard("0003", today.minusYears(1), CardStatus.ACTIVE);
+        Card expiredBlocked = createCard("0004", today.minusDays(1), CardStatus.BLOCKED);
+        Card alreadyExpired = createCard("0005", today.minusYears(2), CardStatus.EXPIRED);
+        Card expiresToday = createCard("0006", today, CardStatus.ACTIVE);
+        Card valid = createCard("0007", today.plusYears(1), CardStatus.BLOCKED);
+
+        ExpirySweepDTO result = cardExpirySweeper.sweep();
+
+        assertEquals(4, result.getExpiredCards());
+        assertEquals(3, result.getBatches()); // 2 + 2 + пустая порция (batch-size в application-test.yml)
+        assertNotNull(result.getFinishedAt());
+        assertSame(result, cardExpirySweeper.getLastRun());
+
+        assertEquals(CardStatus.EXPIRED, statusOf(expiredActive1));
+        assertEquals(CardStatus.EXPIRED, statusOf(expiredActive2));
+        assertEquals(CardStatus.EXPIRED, statusOf(expiredActive3));
+        assertEquals(CardStatus.EXPIRED, statusOf(expiredBlocked));
+        assertEquals(CardStatus.EXPIRED, statusOf(alreadyExpired));
+        assertEquals(CardStatus.ACTIVE, statusOf(expiresToday));
+        assertEquals(CardStatus.BLOCKED, statusOf(valid));
+    }
+
+    @Test
+    void testSweep_NothingToExpire() {
+        createCard("0001", LocalDate.now().plusDays(1), CardStatus.ACTIVE);
+
+        ExpirySweepDTO result = cardExpirySweeper.sweep();
+
+        assertEquals(0, result.getExpiredCards());
+        assertEquals(1, result.getBatches());
+    }
+
+    private CardStatus statusOf(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getStatus();
+    }
+
+    private Card createCard(String last4, LocalDate expiryDate, CardStatus status) {
+        return cardRepository.save(card(owner, last4)
+                .expiryDate(expiryDate)
+                .status(status)
+                .balance(BigDecimal.ZERO)
+                .build());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkCardIssueRequest;
+import com.example.bankcards.dto.BulkCardIssueResponse;
+import com.example.bankcards.dto.CardDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.util.CardMaskingUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardServiceBulkIssueTest extends AbstractServiceDataTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardMaskingUtil cardMaskingUtil;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = createUser("alice", "Alice", "Smith");
+        bob = createUser("bob");
+    }
+
+    @Test
+    void testIssueCards_Success() {
+        BulkCardIssueResponse response = cardService.issueCards(BulkCardIssueRequest.builder()
+                .userIds(List.of(alice.getId(), bob.getId(), alice.getId()))
+                .cardsPerUser(150)
+                .expiryDate(LocalDate.now().plusYears(4))
+                .initialBalance(BigDecimal.valueOf(10))
+                .build());
+
+        // Повторный id пользователя не удваивает выпуск
+        assertEquals(300, response.getIssued());
+        assertEquals(300, response.getCards().size());
+        response.getCards().forEach(card -> assertNotNull(card.getId()));
+
+        Map<String, Long> cardsByOwner = response.getCards().stream()
+                .collect(Collectors.groupingBy(CardDTO::getOwnerUsername, Collectors.counting()));
+        assertEquals(Map.of("alice", 150L, "bob", 150L), cardsByOwner);
+
+        List<Card> saved = cardRepository.findAll();
+        assertEquals(300, saved.size());
+
+        Set<String> hashes = saved.stream().map(Card::getCardNumberHash).collect(Collectors.toSet());
+        assertEquals(300, hashes.size());
+
+        for (Card card : saved) {
+            String number = encryptionUtil.decrypt(card.getCardNumber());
+            assertTrue(cardMaskingUtil.isValidCardNumber(number), "Luhn-valid number expected: " + number);
+            assertEquals(encryptionUtil.hashCardNumber(number), card.getCardNumberHash());
+            assertEquals(number.substring(12), card.getCardLast4());
+            assertTrue(encryptionUtil.decrypt(card.getCvv()).matches("\\d{3}"));
+            assertEquals(CardStatus.ACTIVE, card.getStatus());
+            assertEquals(0, BigDecimal.valueOf(10).compareTo(card.getBalance()));
+            assertNotNull(card.getCreatedAt());
+        }
+
+        assertTrue(saved.stream().anyMatch(card -> card.getCardHolder().equals("ALICE SMITH")));
+        assertTrue(saved.stream().anyMatch(card -> card.getCardHolder().equals("BOB")));
+    }
+
+    @Test
+    void testIssueCards_UnknownUser() {
+        BulkCardIssueRequest request = BulkCardIssueRequest.builder()
+                .userIds(List.of(alice.getId(), -1L))
+                .cardsPerUser(1)
+                .expiryDate(LocalDate.now().plusYears(4))
+                .build();
+
+        assertThrows(ResourceNotFoundException.class, () -> cardService.issueCards(request));
+        assertEquals(0, cardRepository.count());
+    }
+
+    @Test
+    void testIssueCards_TooManyCards() {
+        List<Long> userIds = LongStream.rangeClosed(1, 101).boxed().collect(Collectors.toList());
+        BulkCardIssueRequest request = BulkCardIssueRequest.builder()
+                .userIds(userIds)
+                .cardsPerUser(100)
+                .expiryDate(LocalDate.now().plusYears(4))
+                .build();
+
+        assertThrows(BadRequestException.class, () -> cardService.issueCards(request));
+    }
+
+    @Test
+    void testIssueCards_ExpiryDateInPast() {
+        BulkCardIssueRequest request = BulkCardIssueRequest.builder()
+                .userIds(List.of(alice.getId()))
+                .cardsPerUser(1)
+                .expiryDate(LocalDate.now().minusDays(1))
+                .build();
+
+        assertThrows(BadRequestException.class, () -> cardService.issueCards(request));
+    }
+}
@@ -11,6 +11,7 @@ import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.util.CardMaskingUtil;
+import com.example.bankcards.util.CardNumberGenerator;
 import com.example.bankcards.util.EncryptionUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,6 +46,12 @@ class CardServiceTest {
     @Mock
     private CardMaskingUtil cardMaskingUtil;
 
+    @Mock
+    private CardNumberGenerator cardNumberGenerator;
+
+    @Mock
+    private DashboardStatsStore dashboardStatsStore;
+
     @InjectMocks
     private CardService cardService;
 
@@ -65,6 +72,8 @@ class CardServiceTest {
         card = Card.builder()
                 .id(1L)
                 .cardNumber("encrypted-card-number")
+                .cardNumberHash("card-number-hash")
+                .cardLast4("0366")
                 .cardHolder("TEST USER")
                 .expiryDate(LocalDate.of(2027, 12, 31))
                 .status(CardStatus.ACTIVE)
@@ -86,12 +95,13 @@ class CardServiceTest {
     void testCreateCard_Success() {
         when(userService.getCurrentUser()).thenReturn(user);
         when(cardMaskingUtil.isValidCardNumber("4532015112830366")).thenReturn(true);
+        when(encryptionUtil.hashCardNumber("4532015112830366")).thenReturn("card-number-hash");
+        when(cardRepository.existsByCardNumberHash("card-number-hash")).thenReturn(false);
         when(encryptionUtil.encrypt("4532015112830366")).thenReturn("encrypted-card-number");
         when(encryptionUtil.encrypt("123")).thenReturn("encrypted-cvv");
-        when(cardRepository.existsByCardNumber("encrypted-card-number")).thenReturn(false);
+        when(cardMaskingUtil.getLastFour("4532015112830366")).thenReturn("0366");
         when(cardRepository.save(any(Card.class))).thenReturn(card);
-        when(encryptionUtil.decrypt("encrypted-card-number")).thenReturn("4532015112830366");
-        when(cardMaskingUtil.maskCardNumber("4532015112830366")).thenReturn("**** **** **** 0366");
+        when(cardMaskingUtil.maskLastFour("0366")).thenReturn("**** **** **** 0366");
 
         CardDTO result = cardService.createCard(createRequest);
 
@@ -99,6 +109,7 @@ class CardServiceTest {
         assertEquals("**** **** **** 0366", result.getMaskedCardNumber());
         assertEquals(CardStatus.ACTIVE, result.getStatus());
         verify(cardRepository, times(1)).save(any(Card.class));
+        verify(encryptionUtil, never()).decrypt(anyString());
     }
 
     @Test
@@ -115,8 +126,8 @@ class CardServiceTest {
     void testCreateCard_CardAlreadyExists() {
         when(userService.getCurrentUser()).thenReturn(user);
         when(cardMaskingUtil.isValidCardNumber("4532015112830366")).thenReturn(true);
-        when(encryptionUtil.encrypt("4532015112830366")).thenReturn("encrypted-card-number");
-        when(cardRepository.existsByCardNumber("encrypted-card-number")).thenReturn(true);
+        when(encryptionUtil.hashCardNumber("4532015112830366")).thenReturn("card-number-hash");
+        when(cardRepository.existsByCardNumberHash("card-number-hash")).thenReturn(true);
 
         assertThrows(BadRequestException.class, () -> cardService.createCard(createRequest));
 
@@ -128,8 +139,7 @@ class CardServiceTest {
         when(userService.getCurrentUser()).thenReturn(user);
         when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
         when(cardRepository.save(any(Card.class))).thenReturn(card);
-        when(encryptionUtil.decrypt(anyString())).thenReturn("4532015112830366");
-        when(cardMaskingUtil.maskCardNumber(anyString())).thenReturn("**** **** **** 0366");
+        when(cardMaskingUtil.maskLastFour("0366")).thenReturn("**** **** **** 0366");
 
         CardDTO result = cardService.blockCard(1L);
 
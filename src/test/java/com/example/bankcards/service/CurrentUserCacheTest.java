@@ -0,0 +1,117 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CacheStatsDTO;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кэш текущего пользователя с включенным вторым уровнем (Caffeine): счетчики попаданий,
+ * сброс после коммита и изменения пользователя, видимые в следующем запросе.
+ */
+@TestPropertySource(properties = "application.users.current-user-cache.enabled=true")
+class CurrentUserCacheTest extends AbstractServiceDataTest {
+
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("cacheduser");
+        currentUserCache.evict(user.getUsername()); // пользователь с тем же именем из предыдущего теста
+        authenticate(user);
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testHitsAndMisses_Counted() {
+        AtomicInteger loads = new AtomicInteger();
+        CacheStatsDTO before = currentUserCache.getStats();
+
+        newRequest();
+        currentUserCache.get(user.getUsername(), () -> load(loads));
+        currentUserCache.get(user.getUsername(), () -> load(loads)); // тот же запрос
+        newRequest();
+        currentUserCache.get(user.getUsername(), () -> load(loads)); // из Caffeine
+
+        CacheStatsDTO after = currentUserCache.getStats();
+        assertEquals(1, loads.get());
+        assertEquals(1, after.getMisses() - before.getMisses());
+        assertEquals(1, after.getRequestHits() - before.getRequestHits());
+        assertEquals(1, after.getCacheHits() - before.getCacheHits());
+    }
+
+    @Test
+    void testEvictInTransaction_RepeatedAfterCommit() {
+        AtomicInteger loads = new AtomicInteger();
+        currentUserCache.get(user.getUsername(), () -> load(loads));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            currentUserCache.evict(user.getUsername());
+            // Параллельный запрос до коммита снова кэширует старое состояние
+            currentUserCache.get(user.getUsername(), () -> load(loads));
+        });
+        assertEquals(2, loads.get());
+
+        // После коммита старое состояние из кэша удалено
+        currentUserCache.get(user.getUsername(), () -> load(loads));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testRoleChange_VisibleOnNextRequest() {
+        newRequest();
+        assertEquals(Role.USER, userService.getCurrentUser().getRole());
+
+        userService.promoteToAdmin(user.getId());
+
+        newRequest();
+        assertEquals(Role.ADMIN, userService.getCurrentUser().getRole());
+    }
+
+    @Test
+    void testDeactivation_VisibleOnNextRequest() {
+        newRequest();
+        assertTrue(userService.getCurrentUser().isEnabled());
+
+        userService.deactivateUser(user.getId());
+
+        newRequest();
+        assertFalse(userService.getCurrentUser().isEnabled());
+    }
+
+    // Новый HTTP-запрос: первый уровень кэша (атрибут запроса) пуст
+    private void newRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private User load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return userRepository.findByUsername(user.getUsername()).orElseThrow();
+    }
+}
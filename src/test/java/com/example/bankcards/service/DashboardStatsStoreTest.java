@@ -0,0 +1,135 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.DashboardStatsDTO;
+import com.example.bankcards.dto.TopSenderDTO;
+import com.example.bankcards.dto.TransferVolumeDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardStatsStoreTest extends AbstractServiceDataTest {
+
+    private User alice;
+    private User bob;
+    private Card aliceCard1;
+    private Card aliceCard2;
+
+    @BeforeEach
+    void setUp() {
+        alice = createUser("alice");
+        bob = createUser("bob");
+        aliceCard1 = createCard(alice, "1111", CardStatus.ACTIVE, "100.00");
+        aliceCard2 = createCard(alice, "2222", CardStatus.ACTIVE, "50.00");
+        Card bobCard1 = createCard(bob, "3333", CardStatus.BLOCKED, "25.00");
+        Card bobCard2 = createCard(bob, "4444", CardStatus.ACTIVE, "0.00");
+
+        for (int i = 0; i < 3; i++) {
+            createTransfer(alice, aliceCard1, aliceCard2, "10.00");
+        }
+        createTransfer(bob, bobCard1, bobCard2, "40.00");
+    }
+
+    @Test
+    void testGetStats_ReconcilesFromDatabase() {
+        DashboardStatsDTO stats = dashboardStatsStore.getStats();
+
+        assertEquals(2, stats.getTotalUsers());
+        assertEquals(3, stats.getActiveCards());
+        assertEquals(1, stats.getBlockedCards());
+        assertEquals(0, stats.getExpiredCards());
+        assertEquals(0, new BigDecimal("175.00").compareTo(stats.getTotalBalance()));
+        assertNotNull(stats.getReconciledAt());
+
+        assertEquals(4, stats.getTransfersByHour().stream().mapToLong(TransferVolumeDTO::getTransfersCount).sum());
+        assertEquals(4, stats.getTransfersByDay().stream().mapToLong(TransferVolumeDTO::getTransfersCount).sum());
+        assertEquals(0, new BigDecimal("70.00").compareTo(stats.getTransfersByDay().stream()
+                .map(TransferVolumeDTO::getVolume)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)));
+
+        assertEquals(List.of("bob", "alice"), usernames(stats.getTopSenders()));
+        assertEquals(3, stats.getTopSenders().get(1).getTransfersCount());
+    }
+
+    @Test
+    void testIncrementalUpdates_MatchReconciliation() {
+        dashboardStatsStore.getStats();
+
+        // Изменения в БД и уведомления, как их отправляют сервисы
+        createUser("carol");
+        dashboardStatsStore.userCreated();
+
+        aliceCard2.setStatus(CardStatus.BLOCKED);
+        cardRepository.save(aliceCard2);
+        dashboardStatsStore.cardStatusChanged(CardStatus.ACTIVE, CardStatus.BLOCKED);
+
+        Card newCard = createCard(alice, "5555", CardStatus.ACTIVE, "500.00");
+        dashboardStatsStore.cardCreated(newCard.getStatus(), newCard.getBalance());
+
+        Transfer transfer = createTransfer(alice, aliceCard1, newCard, "100.00");
+        dashboardStatsStore.transferCompleted(alice, transfer.getAmount(), transfer.getTransferDate());
+
+        DashboardStatsDTO incremental = dashboardStatsStore.getStats();
+        dashboardStatsStore.reconcile();
+        DashboardStatsDTO reconciled = dashboardStatsStore.getStats();
+
+        assertEquals(3, incremental.getTotalUsers());
+        assertEquals(reconciled.getTotalUsers(), incremental.getTotalUsers());
+        assertEquals(reconciled.getActiveCards(), incremental.getActiveCards());
+        assertEquals(reconciled.getBlockedCards(), incremental.getBlockedCards());
+        assertEquals(0, reconciled.getTotalBalance().compareTo(incremental.getTotalBalance()));
+        assertEquals(volumeByPeriod(reconciled.getTransfersByHour()), volumeByPeriod(incremental.getTransfersByHour()));
+        assertEquals(List.of("alice", "bob"), usernames(incremental.getTopSenders()));
+        assertEquals(usernames(reconciled.getTopSenders()), usernames(incremental.getTopSenders()));
+        assertEquals(0, new BigDecimal("130.00").compareTo(incremental.getTopSenders().get(0).getVolume()));
+    }
+
+    @Test
+    void testInvalidate_NextReadReconciles() {
+        dashboardStatsStore.getStats();
+
+        transferRepository.deleteAll();
+        dashboardStatsStore.invalidate();
+
+        DashboardStatsDTO stats = dashboardStatsStore.getStats();
+        assertTrue(stats.getTransfersByHour().isEmpty());
+        assertTrue(stats.getTopSenders().isEmpty());
+    }
+
+    private List<String> usernames(List<TopSenderDTO> senders) {
+        return senders.stream().map(TopSenderDTO::getUsername).collect(Collectors.toList());
+    }
+
+    // Объемы с точностью до копейки, без учета масштаба BigDecimal
+    private List<String> volumeByPeriod(List<TransferVolumeDTO> volumes) {
+        return volumes.stream()
+                .map(v -> v.getPeriod() + "=" + v.getTransfersCount() + "/" + v.getVolume().setScale(2))
+                .collect(Collectors.toList());
+    }
+
+    private Card createCard(User owner, String last4, CardStatus status, String balance) {
+        return cardRepository.save(card(owner, last4)
+                .status(status)
+                .balance(new BigDecimal(balance))
+                .build());
+    }
+
+    private Transfer createTransfer(User user, Card from, Card to, String amount) {
+        return transferRepository.save(Transfer.builder()
+                .fromCard(from)
+                .toCard(to)
+                .amount(new BigDecimal(amount))
+                .status(TransferStatus.COMPLETED)
+                .user(user)
+                .build());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.JwtAuthenticationFilter;
+import com.example.bankcards.security.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Отзыв stateless-токенов: фильтр восстанавливает пользователя из claims и сверяет версию
+ * токена с users.token_version, обновление токена проверяет то же самое по БД.
+ */
+@Import({JwtService.class, JwtAuthenticationFilter.class, CustomUserDetailsService.class,
+        AuthenticationService.class})
+class TokenRevocationTest extends AbstractServiceDataTest {
+
+    @MockBean
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private UserService userService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("tokenuser");
+    }
+
+    @Test
+    void testAccessToken_Authenticates() throws Exception {
+        Authentication authentication = filter(jwtService.generateToken(user));
+
+        assertNotNull(authentication);
+        User principal = assertInstanceOf(User.class, authentication.getPrincipal());
+        assertEquals(user.getId(), principal.getId());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+    }
+
+    @Test
+    void testAccessToken_DeactivatedUser_Rejected() throws Exception {
+        String token = jwtService.generateToken(user);
+        assertNotNull(filter(token)); // версия закэширована до деактивации
+
+        userService.deactivateUser(user.getId());
+
+        assertNull(filter(token));
+    }
+
+    @Test
+    void testAccessToken_IssuedBeforeRoleChange_Rejected() throws Exception {
+        String token = jwtService.generateToken(user);
+        assertNotNull(filter(token));
+
+        userService.promoteToAdmin(user.getId());
+
+        // Старый токен с ролью USER не принимается, новый несет роль ADMIN
+        assertNull(filter(token));
+        User promoted = userRepository.findById(user.getId()).orElseThrow();
+        Authentication authentication = filter(jwtService.generateToken(promoted));
+        assertNotNull(authentication);
+        assertEquals(Role.ADMIN, assertInstanceOf(User.class, authentication.getPrincipal()).getRole());
+    }
+
+    @Test
+    void testLegacyTokenWithoutUserId_AuthenticatesFromDatabase() throws Exception {
+        // Токен старого формата: только subject, без uid, роли и версии
+        String token = jwtService.generateToken(Map.of(), user);
+        assertNull(jwtService.parseAndValidate(token).get(JwtService.CLAIM_USER_ID));
+
+        Authentication authentication = filter(token);
+
+        assertNotNull(authentication);
+        assertEquals(user.getId(), assertInstanceOf(User.class, authentication.getPrincipal()).getId());
+    }
+
+    @Test
+    void testRefreshToken_Revoked_Rejected() {
+        String refreshToken = jwtService.generateRefreshToken(user);
+        assertNotNull(authenticationService.refreshToken(refreshToken).getToken());
+
+        userService.demoteToUser(user.getId()); // меняет версию, как и любая смена роли
+
+        assertThrows(BadRequestException.class, () -> authenticationService.refreshToken(refreshToken));
+    }
+
+    @Test
+    void testRefreshToken_DeactivatedUser_Rejected() {
+        String refreshToken = jwtService.generateRefreshToken(user);
+
+        userService.deactivateUser(user.getId());
+
+        assertThrows(BadRequestException.class, () -> authenticationService.refreshToken(refreshToken));
+    }
+
+    // Прогоняет запрос с токеном через фильтр и возвращает установленную им аутентификацию
+    private Authentication filter(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cards");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
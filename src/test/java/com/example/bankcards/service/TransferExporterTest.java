@@ -0,0 +1,133 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BadRequestException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferExporterTest extends AbstractServiceDataTest {
+
+    @Autowired
+    private TransferExporter transferExporter;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("exportuser");
+        Card card1 = createCard(user, "0366");
+        Card card2 = createCard(user, "2832");
+
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            transfers.add(Transfer.builder()
+                    .fromCard(card1)
+                    .toCard(card2)
+                    .amount(BigDecimal.valueOf(10 + i))
+                    .description(i == 1 ? "rent, \"May\"" : "transfer " + i)
+                    .status(TransferStatus.COMPLETED)
+                    .user(user)
+                    .transferDate(LocalDateTime.of(2026, 5, 1 + i, 12, 0))
+                    .build());
+        }
+        transferRepository.batchInsert(transfers);
+    }
+
+    @Test
+    void testExport_Ndjson() throws Exception {
+        String[] lines = export(TransferExporter.Format.NDJSON).split("\n");
+
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("**** **** **** 0366", first.get("fromCardMasked").asText());
+        assertEquals("**** **** **** 2832", first.get("toCardMasked").asText());
+        assertEquals("transfer 0", first.get("description").asText());
+        assertEquals("rent, \"May\"", objectMapper.readTree(lines[1]).get("description").asText());
+    }
+
+    @Test
+    void testExport_Csv() throws Exception {
+        String[] lines = export(TransferExporter.Format.CSV).split("\n");
+
+        assertEquals(4, lines.length);
+        assertEquals("id,fromCard,toCard,amount,transferDate,status,description", lines[0]);
+        assertTrue(lines[1].endsWith(",**** **** **** 0366,**** **** **** 2832,10.00,2026-05-01T12:00,COMPLETED,transfer 0"));
+        assertTrue(lines[2].endsWith(",COMPLETED,\"rent, \"\"May\"\"\""));
+    }
+
+    @Test
+    void testExport_NdjsonLinesTerminated() throws Exception {
+        String body = export(TransferExporter.Format.NDJSON);
+
+        assertTrue(body.endsWith("}\n"));
+        assertFalse(body.contains("\n\n"));
+    }
+
+    @Test
+    void testExport_Empty() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 12, 31, 0, 0);
+
+        assertEquals("", export(TransferExporter.Format.NDJSON, from, to));
+        assertEquals("id,fromCard,toCard,amount,transferDate,status,description\n",
+                export(TransferExporter.Format.CSV, from, to));
+    }
+
+    @Test
+    void testExport_OnlyRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transferExporter.export(user.getId(), LocalDateTime.of(2026, 5, 2, 0, 0), LocalDateTime.of(2026, 5, 2, 23, 59),
+                TransferExporter.Format.NDJSON, out);
+
+        assertEquals(1, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void testExportByDateRange_CheckedBeforeStreaming() throws Exception {
+        authenticate(user);
+        assertThrows(BadRequestException.class, () -> transferService.exportTransfersByDateRange(
+                LocalDateTime.of(2026, 6, 1, 0, 0), LocalDateTime.of(2026, 5, 1, 0, 0), TransferExporter.Format.CSV));
+
+        TransferExporter.Export export = transferService.exportTransfersByDateRange(
+                LocalDateTime.of(2026, 1, 1, 0, 0), LocalDateTime.of(2026, 12, 31, 0, 0), TransferExporter.Format.NDJSON);
+
+        // Поток ответа пишет без SecurityContext запроса
+        SecurityContextHolder.clearContext();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.writeTo(out);
+
+        assertEquals(3, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    private String export(TransferExporter.Format format) throws Exception {
+        return export(format, LocalDateTime.of(2026, 1, 1, 0, 0), LocalDateTime.of(2026, 12, 31, 0, 0));
+    }
+
+    private String export(TransferExporter.Format format, LocalDateTime from, LocalDateTime to) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transferExporter.export(user.getId(), from, to, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferServiceBatchTest extends AbstractServiceDataTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    private Card card1;
+    private Card card2;
+    private Card otherUserCard;
+
+    @BeforeEach
+    void setUp() {
+        User user = createUser("batchuser");
+        User otherUser = createUser("otheruser");
+        card1 = createCard(user, "4532015112830366", BigDecimal.valueOf(100.00));
+        card2 = createCard(user, "4916338506082832", BigDecimal.valueOf(50.00));
+        otherUserCard = createCard(otherUser, "4556737586899855", BigDecimal.valueOf(10.00));
+
+        authenticate(user);
+    }
+
+    @Test
+    void testCreateTransfers_ReportsPerItemResults() {
+        List<TransferRequest> requests = List.of(
+                transfer(card1.getId(), card2.getId(), "60.00"),
+                transfer(card1.getId(), card2.getId(), "60.00"),   // остатка уже не хватает
+                transfer(card2.getId(), card1.getId(), "10.00"),
+                transfer(card1.getId(), otherUserCard.getId(), "1.00"),
+                transfer(card1.getId(), 999_999L, "1.00"),
+                transfer(card2.getId(), card2.getId(), "1.00"));
+
+        BatchTransferResponse response = transferService.createTransfers(requests);
+
+        assertEquals(2, response.getSucceeded());
+        assertEquals(4, response.getFailed());
+        assertEquals(6, response.getResults().size());
+        assertTrue(response.getResults().get(0).isSuccess());
+        assertNotNull(response.getResults().get(0).getTransfer().getId());
+        assertEquals("**** **** **** 2832", response.getResults().get(0).getTransfer().getToCardMasked());
+        assertFalse(response.getResults().get(1).isSuccess());
+        assertEquals("Insufficient funds on the source card", response.getResults().get(1).getError());
+        assertTrue(response.getResults().get(2).isSuccess());
+        assertFalse(response.getResults().get(3).isSuccess());
+        assertFalse(response.getResults().get(4).isSuccess());
+        assertFalse(response.getResults().get(5).isSuccess());
+
+        assertEquals(0, BigDecimal.valueOf(50.00).compareTo(balanceOf(card1)));
+        assertEquals(0, BigDecimal.valueOf(100.00).compareTo(balanceOf(card2)));
+        assertEquals(0, BigDecimal.valueOf(10.00).compareTo(balanceOf(otherUserCard)));
+
+        List<Transfer> saved = transferRepository.findAll();
+        assertEquals(2, saved.size());
+        assertTrue(saved.stream().allMatch(t -> t.getTransferDate() != null));
+    }
+
+    @Test
+    void testCreateTransfers_CardPastExpiryBeforeSweep_Rejected() {
+        // Срок истек, но CardExpirySweeper еще не выставил статус EXPIRED
+        card1.setExpiryDate(LocalDate.now().minusDays(1));
+        cardRepository.save(card1);
+
+        BatchTransferResponse response = transferService.createTransfers(
+                List.of(transfer(card1.getId(), card2.getId(), "10.00")));
+
+        assertEquals(1, response.getFailed());
+        assertEquals("Source card has expired", response.getResults().get(0).getError());
+        assertEquals(0, BigDecimal.valueOf(100.00).compareTo(balanceOf(card1)));
+    }
+
+    private Card createCard(User owner, String number, BigDecimal balance) {
+        return cardRepository.save(encryptedCard(owner, number).balance(balance).build());
+    }
+
+    private TransferRequest transfer(Long fromCardId, Long toCardId, String amount) {
+        return TransferRequest.builder()
+                .fromCardId(fromCardId)
+                .toCardId(toCardId)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+
+    private BigDecimal balanceOf(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.UnauthorizedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferServiceConcurrencyTest extends AbstractServiceDataTest {
+
+    private static final int CARDS = 4;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(100.00);
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+    private final List<Long> cardIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("stressuser");
+
+        String[] numbers = {"4532015112830366", "4916338506082832", "4556737586899855", "4024007198964305"};
+        for (int i = 0; i < CARDS; i++) {
+            Card card = cardRepository.save(encryptedCard(user, numbers[i]).balance(INITIAL_BALANCE).build());
+            cardIds.add(card.getId());
+        }
+    }
+
+    @Test
+    void testConcurrentTransfers_TotalBalanceConserved() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                authenticate(user);
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(CARDS);
+                    int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+                    TransferRequest request = TransferRequest.builder()
+                            .fromCardId(cardIds.get(from))
+                            .toCardId(cardIds.get(to))
+                            .amount(BigDecimal.valueOf(random.nextInt(1, 40)))
+                            .build();
+                    try {
+                        transferService.createTransfer(request);
+                        completed.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                SecurityContextHolder.clearContext();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        List<Card> cards = cardRepository.findAllById(cardIds);
+        BigDecimal total = cards.stream()
+                .map(Card::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(total));
+        cards.forEach(card -> assertTrue(card.getBalance().signum() >= 0));
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, completed.get() + rejected.get());
+        assertEquals(completed.get(), transferRepository.count());
+    }
+
+    @Test
+    void testConcurrentRetriesWithSameIdempotencyKey_SingleTransfer() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId(cardIds.get(0))
+                .toCardId(cardIds.get(1))
+                .amount(BigDecimal.valueOf(10.00))
+                .build();
+        List<Future<TransferDTO>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                authenticate(user);
+                start.await();
+                try {
+                    return transferService.createTransfer(request, "retry-key-1");
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+
+        start.countDown();
+        List<Long> transferIds = new ArrayList<>();
+        for (Future<TransferDTO> future : futures) {
+            transferIds.add(future.get(1, TimeUnit.MINUTES).getId());
+        }
+        executor.shutdown();
+
+        assertEquals(1, transferRepository.count());
+        assertTrue(transferIds.stream().allMatch(id -> id.equals(transferIds.get(0))));
+        assertEquals(0, BigDecimal.valueOf(90.00)
+                .compareTo(cardRepository.findById(cardIds.get(0)).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testForeignCardIds_NotLocked() throws Exception {
+        User other = createUser("otheruser");
+        Card foreign = createCard(other, "1111");
+
+        // Владелец держит блокировку своей карты, пока чужие запросы ссылаются на нее
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cardRepository.findAllByIdAndUserIdForUpdate(List.of(foreign.getId()), other.getId());
+            locked.countDown();
+            try {
+                release.await(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(1, TimeUnit.MINUTES));
+
+        try {
+            authenticate(user);
+            // Чужая карта не блокируется, поэтому отказ приходит сразу, а не после ожидания блокировки
+            assertTimeout(Duration.ofSeconds(10), () -> {
+                assertThrows(BadRequestException.class, () -> transferService.createTransfer(TransferRequest.builder()
+                        .fromCardId(cardIds.get(0))
+                        .toCardId(foreign.getId())
+                        .amount(BigDecimal.ONE)
+                        .build()));
+                assertThrows(UnauthorizedException.class, () -> transferService.createTransfer(TransferRequest.builder()
+                        .fromCardId(foreign.getId())
+                        .toCardId(cardIds.get(0))
+                        .amount(BigDecimal.ONE)
+                        .build()));
+
+                BatchTransferResponse response = transferService.createTransfers(List.of(
+                        TransferRequest.builder().fromCardId(cardIds.get(0)).toCardId(cardIds.get(1))
+                                .amount(BigDecimal.ONE).build(),
+                        TransferRequest.builder().fromCardId(foreign.getId()).toCardId(cardIds.get(1))
+                                .amount(BigDecimal.ONE).build()));
+                assertEquals(1, response.getSucceeded());
+                assertEquals(1, response.getFailed());
+            });
+        } finally {
+            release.countDown();
+            holder.get(1, TimeUnit.MINUTES);
+            executor.shutdown();
+        }
+
+        assertEquals(0, BigDecimal.valueOf(1000.00)
+                .compareTo(cardRepository.findById(foreign.getId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testIdempotencyKeyReusedForDifferentTransfer_Rejected() {
+        authenticate(user);
+        TransferDTO original = transferService.createTransfer(TransferRequest.builder()
+                .fromCardId(cardIds.get(0))
+                .toCardId(cardIds.get(1))
+                .amount(new BigDecimal("10.0"))
+                .build(), "reused-key");
+
+        // Повтор из кэша: сумма та же в другом масштабе - исходный перевод
+        assertEquals(original.getId(), transferService.createTransfer(TransferRequest.builder()
+                .fromCardId(cardIds.get(0))
+                .toCardId(cardIds.get(1))
+                .amount(new BigDecimal("10.00"))
+                .build(), "reused-key").getId());
+        assertThrows(IdempotencyKeyConflictException.class, () -> transferService.createTransfer(
+                TransferRequest.builder()
+                        .fromCardId(cardIds.get(0))
+                        .toCardId(cardIds.get(1))
+                        .amount(BigDecimal.valueOf(20.00))
+                        .build(), "reused-key"));
+
+        // Ключ есть только в БД (кэш вытеснен или другой экземпляр): другая карта получателя
+        Card from = cardRepository.findById(cardIds.get(2)).orElseThrow();
+        Card to = cardRepository.findById(cardIds.get(3)).orElseThrow();
+        transferRepository.save(Transfer.builder()
+                .fromCard(from)
+                .toCard(to)
+                .amount(BigDecimal.ONE)
+                .status(TransferStatus.COMPLETED)
+                .user(user)
+                .idempotencyKey("db-only-key")
+                .build());
+        assertThrows(IdempotencyKeyConflictException.class, () -> transferService.createTransfer(
+                TransferRequest.builder()
+                        .fromCardId(cardIds.get(2))
+                        .toCardId(cardIds.get(1))
+                        .amount(BigDecimal.ONE)
+                        .build(), "db-only-key"));
+
+        assertEquals(2, transferRepository.count());
+        assertEquals(0, BigDecimal.valueOf(90.00)
+                .compareTo(cardRepository.findById(cardIds.get(0)).orElseThrow().getBalance()));
+        assertEquals(0, INITIAL_BALANCE.compareTo(cardRepository.findById(cardIds.get(2)).orElseThrow().getBalance()));
+    }
+}
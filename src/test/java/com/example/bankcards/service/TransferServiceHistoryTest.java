@@ -0,0 +1,145 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferServiceHistoryTest extends AbstractServiceDataTest {
+
+    private static final int TRANSFERS = 25;
+
+    @Autowired
+    private TransferService transferService;
+
+    private Card card1;
+    private Card card2;
+    private Card card3;
+
+    @BeforeEach
+    void setUp() {
+        User user = createUser("cursoruser");
+        card1 = createEncryptedCard(user, "4532015112830366");
+        card2 = createEncryptedCard(user, "4916338506082832");
+        card3 = createEncryptedCard(user, "4556737586899855");
+
+        authenticate(user);
+
+        // Каждый третий перевод не затрагивает card1
+        for (int i = 0; i < TRANSFERS; i++) {
+            Card from = i % 3 == 2 ? card2 : card1;
+            Card to = i % 3 == 2 ? card3 : card2;
+            transferService.createTransfer(TransferRequest.builder()
+                    .fromCardId(from.getId())
+                    .toCardId(to.getId())
+                    .amount(BigDecimal.ONE)
+                    .build());
+        }
+    }
+
+    @Test
+    void testGetUserTransfers_WalksAllPagesNewestFirst() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<TransferDTO> page = transferService.getUserTransfers(cursor, 10);
+            page.getContent().forEach(transfer -> ids.add(transfer.getId()));
+            assertEquals(page.isHasNext(), page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(expectedIdsNewestFirst(null), ids);
+    }
+
+    @Test
+    void testGetTransfersByCardId_OnlyCardTransfers() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<TransferDTO> page = transferService.getTransfersByCardId(card1.getId(), cursor, 4);
+            page.getContent().forEach(transfer -> ids.add(transfer.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expectedIdsNewestFirst(card1), ids);
+    }
+
+    @Test
+    void testGetTransfersByCardId_PagesInDateOrder() {
+        List<Long> expected = expectedIdsNewestFirst(card1);
+        List<Long> ids = new ArrayList<>();
+        for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+            Slice<TransferDTO> page = transferService.getTransfersByCardId(card1.getId(), PageRequest.of(pageNumber, 7), true);
+            assertEquals(expected.size(), assertInstanceOf(Page.class, page).getTotalElements());
+            page.getContent().forEach(transfer -> ids.add(transfer.getId()));
+        }
+
+        assertEquals(expected, ids);
+
+        // card3 встречается только как получатель
+        assertEquals(expectedIdsNewestFirst(card3).size(),
+                transferService.getTransfersByCardId(card3.getId(), PageRequest.of(0, 100), true).getNumberOfElements());
+    }
+
+    @Test
+    void testGetTransfersByCardId_SentAndReceived_CursorAndOffsetAgree() {
+        // card2 и отправитель, и получатель: страницы собираются из обеих веток UNION ALL
+        List<Long> expected = expectedIdsNewestFirst(card2);
+        List<Long> byCursor = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<TransferDTO> page = transferService.getTransfersByCardId(card2.getId(), cursor, 6);
+            page.getContent().forEach(transfer -> byCursor.add(transfer.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<Long> byOffset = new ArrayList<>();
+        for (int pageNumber = 0; pageNumber * 6 < expected.size(); pageNumber++) {
+            transferService.getTransfersByCardId(card2.getId(), PageRequest.of(pageNumber, 6), true)
+                    .forEach(transfer -> byOffset.add(transfer.getId()));
+        }
+
+        assertEquals(TRANSFERS, expected.size());
+        assertEquals(expected, byCursor);
+        assertEquals(expected, byOffset);
+    }
+
+    @Test
+    void testGetUserTransfers_InvalidCursorOrSize() {
+        assertThrows(BadRequestException.class, () -> transferService.getUserTransfers("not-a-cursor", 10));
+        assertThrows(BadRequestException.class, () -> transferService.getUserTransfers(null, 0));
+        assertThrows(BadRequestException.class, () -> transferService.getUserTransfers(null, 101));
+    }
+
+    private List<Long> expectedIdsNewestFirst(Card card) {
+        return transferRepository.findAll().stream()
+                .filter(t -> card == null
+                        || t.getFromCard().getId().equals(card.getId())
+                        || t.getToCard().getId().equals(card.getId()))
+                .sorted((a, b) -> {
+                    int byDate = b.getTransferDate().compareTo(a.getTransferDate());
+                    return byDate != 0 ? byDate : b.getId().compareTo(a.getId());
+                })
+                .map(Transfer::getId)
+                .collect(Collectors.toList());
+    }
+}
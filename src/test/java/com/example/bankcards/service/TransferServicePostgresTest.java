@@ -0,0 +1,223 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.entity.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * История карты и пользователя на PostgreSQL со схемой из миграций Liquibase: native UNION ALL
+ * запросы, keyset-условия и индексы (…, transfer_date, id) проверяются на той же СУБД, что и в production.
+ * Без Docker тест пропускается.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestPropertySource(properties = {
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.liquibase.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.bankcards.service.TransferServicePostgresTest$KeysetSqlRecorder"
+})
+class TransferServicePostgresTest extends AbstractServiceDataTest {
+
+    private static final int TRANSFERS = 40;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private User user;
+    private Card card1;
+    private Card card2;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("pguser");
+        card1 = createCard(user, "0366");
+        card2 = createCard(user, "2832");
+        Card card3 = createCard(user, "5899");
+
+        // Переводы парами с одной датой: порядок внутри пары задает id
+        LocalDateTime start = LocalDateTime.of(2026, 5, 1, 12, 0);
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            transfers.add(Transfer.builder()
+                    .fromCard(i % 3 == 2 ? card2 : card1)
+                    .toCard(i % 3 == 0 ? card3 : i % 3 == 1 ? card2 : card1)
+                    .amount(BigDecimal.ONE)
+                    .status(TransferStatus.COMPLETED)
+                    .user(user)
+                    .transferDate(start.plusMinutes(i / 2))
+                    .build());
+        }
+        transferRepository.batchInsert(transfers);
+
+        authenticate(user);
+    }
+
+    @Test
+    void testCardHistory_OffsetPagesNewestFirst() {
+        for (Card card : List.of(card1, card2)) {
+            List<Long> expected = expectedIdsNewestFirst(card);
+            List<Long> ids = new ArrayList<>();
+            for (int pageNumber = 0; pageNumber * 7 < expected.size(); pageNumber++) {
+                transferService.getTransfersByCardId(card.getId(), PageRequest.of(pageNumber, 7), true)
+                        .forEach(transfer -> ids.add(transfer.getId()));
+            }
+
+            assertEquals(expected, ids);
+            assertEquals(expected.size(), assertInstanceOf(Page.class,
+                    transferService.getTransfersByCardId(card.getId(), PageRequest.of(0, 7), true)).getTotalElements());
+        }
+    }
+
+    @Test
+    void testCardHistory_CursorPagesNewestFirst() {
+        for (Card card : List.of(card1, card2)) {
+            List<Long> ids = new ArrayList<>();
+            String cursor = null;
+            do {
+                CursorPage<TransferDTO> page = transferService.getTransfersByCardId(card.getId(), cursor, 5);
+                page.getContent().forEach(transfer -> ids.add(transfer.getId()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertEquals(expectedIdsNewestFirst(card), ids);
+        }
+    }
+
+    @Test
+    void testUserHistory_CursorPagesNewestFirst() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<TransferDTO> page = transferService.getUserTransfers(cursor, 7);
+            page.getContent().forEach(transfer -> ids.add(transfer.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(transferRepository.findAll().stream()
+                .sorted(Comparator.comparing(Transfer::getTransferDate).thenComparing(Transfer::getId).reversed())
+                .map(Transfer::getId)
+                .collect(Collectors.toList()), ids);
+    }
+
+    @Test
+    void testUserHistory_DeepPageStartsAtCursorInIndex() throws SQLException {
+        // История на 2000 переводов у каждого из 20 пользователей
+        User deepUser = null;
+        try (Connection connection = dataSource.getConnection(); Statement st = connection.createStatement()) {
+            for (int i = 0; i < 20; i++) {
+                deepUser = createUser("pgdeep" + i);
+                st.execute("INSERT INTO transfers (from_card_id, to_card_id, amount, transfer_date, status, user_id) "
+                        + "SELECT " + card1.getId() + ", " + card2.getId() + ", 1, "
+                        + "TIMESTAMP '2026-01-01' + g * INTERVAL '1 second', 'COMPLETED', " + deepUser.getId()
+                        + " FROM generate_series(1, 2000) g");
+            }
+            st.execute("ANALYZE");
+        }
+
+        // SQL берется у Hibernate: так проверяется условие, которое он строит из JPQL
+        KeysetSqlRecorder.sql = null;
+        String cursor = transferService.getUserTransfers(null, 5).getNextCursor();
+        transferService.getUserTransfers(cursor, 5);
+        assertNotNull(KeysetSqlRecorder.sql);
+
+        StringBuilder prepare = new StringBuilder("PREPARE keyset AS ");
+        int parameter = 0;
+        for (char c : KeysetSqlRecorder.sql.toCharArray()) {
+            if (c == '?') {
+                prepare.append('$').append(++parameter);
+            } else {
+                prepare.append(c);
+            }
+        }
+        assertEquals(5, parameter); // user_id, transfer_date, id, offset, limit
+
+        // Простой протокол: драйвер не принимает $n за свои параметры
+        Properties properties = new Properties();
+        properties.setProperty("user", POSTGRES.getUsername());
+        properties.setProperty("password", POSTGRES.getPassword());
+        properties.setProperty("preferQueryMode", "simple");
+        StringBuilder plan = new StringBuilder();
+        try (Connection connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), properties);
+             Statement st = connection.createStatement()) {
+            st.execute(prepare.toString());
+            // Курсор на глубине 1500 переводов из 2000
+            try (ResultSet rs = st.executeQuery("EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF) EXECUTE keyset("
+                    + deepUser.getId() + ", TIMESTAMP '2026-01-01 00:08:20', " + Long.MAX_VALUE + ", 0, 6)")) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+        }
+
+        // Позиция курсора - начало диапазона в idx_transfers_user_date_id: читаются только строки страницы,
+        // а не все более новые переводы с фильтром
+        String text = plan.toString();
+        assertTrue(text.contains("Index Scan using idx_transfers_user_date_id"), text);
+        assertTrue(text.matches("(?s).*Index Cond: .*ROW\\((t1_0\\.)?transfer_date, (t1_0\\.)?id\\) < ROW.*"), text);
+        assertTrue(text.matches("(?s).*idx_transfers_user_date_id on transfers t1_0 \\(actual rows=6 .*"), text);
+        assertFalse(text.contains("Rows Removed by Filter"), text);
+    }
+
+    /**
+     * Запоминает SQL keyset-запроса истории пользователя, который строит Hibernate
+     */
+    public static class KeysetSqlRecorder implements StatementInspector {
+
+        static volatile String sql;
+
+        @Override
+        public String inspect(String statement) {
+            if (statement.contains("user_id=?") && statement.contains(")<(")) {
+                sql = statement;
+            }
+            return statement;
+        }
+    }
+
+    private List<Long> expectedIdsNewestFirst(Card card) {
+        return transferRepository.findAll().stream()
+                .filter(t -> t.getFromCard().getId().equals(card.getId()) || t.getToCard().getId().equals(card.getId()))
+                .sorted(Comparator.comparing(Transfer::getTransferDate).thenComparing(Transfer::getId).reversed())
+                .map(Transfer::getId)
+                .collect(Collectors.toList());
+    }
+}
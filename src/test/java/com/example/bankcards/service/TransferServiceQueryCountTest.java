@@ -0,0 +1,143 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferServiceQueryCountTest extends AbstractServiceDataTest {
+
+    private static final int TRANSFERS = 30;
+    private static final int[] PAGE_SIZES = {5, 10, 20};
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Card card1;
+
+    @BeforeEach
+    void setUp() {
+        User user = createUser("countuser");
+        card1 = createCard(user, "0366");
+        Card card2 = createCard(user, "2832");
+
+        // Переводы в обе стороны, card1 участвует в каждом
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            transfers.add(Transfer.builder()
+                    .fromCard(i % 2 == 0 ? card1 : card2)
+                    .toCard(i % 2 == 0 ? card2 : card1)
+                    .amount(BigDecimal.ONE)
+                    .status(TransferStatus.COMPLETED)
+                    .user(user)
+                    .build());
+        }
+        transferRepository.saveAll(transfers);
+
+        authenticate(user);
+    }
+
+    @Test
+    void testGetUserTransfers_ConstantStatementCountForAnyPageSize() {
+        // Текущий пользователь, страница переводов с картами и COUNT
+        for (int pageSize : PAGE_SIZES) {
+            assertStatements(3, pageSize,
+                    () -> transferService.getUserTransfers(PageRequest.of(0, pageSize), true).getContent());
+        }
+    }
+
+    @Test
+    void testGetTransfersByCardId_ConstantStatementCountForAnyPageSize() {
+        // Текущий пользователь, карта, id истории, переводы с картами и COUNT
+        for (int pageSize : PAGE_SIZES) {
+            assertStatements(5, pageSize,
+                    () -> transferService.getTransfersByCardId(card1.getId(), PageRequest.of(0, pageSize), true).getContent());
+        }
+    }
+
+    @Test
+    void testPagesWithoutTotal_SkipCountQuery() {
+        // Те же выборки, что и выше, без COUNT
+        for (int pageSize : PAGE_SIZES) {
+            assertStatements(2, pageSize,
+                    () -> transferService.getUserTransfers(PageRequest.of(0, pageSize), false).getContent());
+            assertStatements(4, pageSize,
+                    () -> transferService.getTransfersByCardId(card1.getId(), PageRequest.of(0, pageSize), false).getContent());
+        }
+    }
+
+    @Test
+    void testPagesWithoutTotal_HasNextUntilLastPage() {
+        Slice<TransferDTO> first = transferService.getTransfersByCardId(card1.getId(), PageRequest.of(0, 20), false);
+        Slice<TransferDTO> last = transferService.getTransfersByCardId(card1.getId(), PageRequest.of(1, 20), false);
+
+        assertEquals(20, first.getNumberOfElements());
+        assertTrue(first.hasNext());
+        assertEquals(TRANSFERS - 20, last.getNumberOfElements());
+        assertFalse(last.hasNext());
+        assertFalse(first instanceof Page, "total must not be computed");
+
+        assertTrue(transferService.getUserTransfers(PageRequest.of(0, 20), false).hasNext());
+        assertFalse(transferService.getUserTransfers(PageRequest.of(1, 20), false).hasNext());
+    }
+
+    @Test
+    void testCursorPages_ConstantStatementCountForAnyPageSize() {
+        // Текущий пользователь и одна выборка страницы; для истории карты - еще карта и id истории
+        for (int pageSize : PAGE_SIZES) {
+            assertStatements(2, pageSize,
+                    () -> transferService.getUserTransfers(null, pageSize).getContent());
+            assertStatements(4, pageSize,
+                    () -> transferService.getTransfersByCardId(card1.getId(), null, pageSize).getContent());
+        }
+    }
+
+    @Test
+    void testListQueries_LoadCardsWithTransfers() {
+        assertStatements(2, TRANSFERS,
+                () -> transferService.getTransfersByStatus(TransferStatus.COMPLETED));
+        assertStatements(2, TRANSFERS,
+                () -> transferService.getTransfersByDateRange(
+                        LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)));
+    }
+
+    private void assertStatements(long expected, int expectedSize, Supplier<List<TransferDTO>> call) {
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        List<TransferDTO> transfers = call.get();
+
+        assertEquals(expectedSize, transfers.size());
+        transfers.forEach(transfer -> {
+            assertNotNull(transfer.getFromCardMasked());
+            assertNotNull(transfer.getToCardMasked());
+        });
+        assertEquals(expected, statistics.getPrepareStatementCount(), "statements for " + expectedSize + " transfers");
+        assertEquals(0, statistics.getEntityFetchCount(), "cards must be loaded with transfers");
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.UserDTO;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServiceQueryCountTest extends AbstractServiceDataTest {
+
+    // Страница пользователей, COUNT для Page и один запрос с количеством карт
+    private static final long EXPECTED_STATEMENTS = 3;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 12; i++) {
+            User user = createUser("user" + i);
+            for (int j = 0; j < i % 3; j++) {
+                cardRepository.save(card(user, String.format("%04d", i * 10 + j))
+                        .balance(BigDecimal.ZERO)
+                        .build());
+            }
+        }
+    }
+
+    @Test
+    void testGetAllUsers_ConstantStatementCountForAnyPageSize() {
+        for (int pageSize : new int[]{2, 5, 12}) {
+            Statistics statistics = statistics();
+            statistics.clear();
+
+            Slice<UserDTO> page = userService.getAllUsers(PageRequest.of(0, pageSize, Sort.by("username")), true);
+
+            assertEquals(pageSize, page.getNumberOfElements());
+            assertEquals(12, assertInstanceOf(Page.class, page).getTotalElements());
+            assertEquals(EXPECTED_STATEMENTS, statistics.getPrepareStatementCount(),
+                    "statements for page size " + pageSize);
+            assertEquals(0, statistics.getCollectionFetchCount(), "cards collections must not be loaded");
+        }
+    }
+
+    @Test
+    void testGetAllUsers_CardsCount() {
+        Map<String, Integer> cardsCounts = userService.getAllUsers(PageRequest.of(0, 20), true).stream()
+                .collect(Collectors.toMap(UserDTO::getUsername, UserDTO::getCardsCount));
+
+        assertEquals(12, cardsCounts.size());
+        assertEquals(0, cardsCounts.get("user0"));
+        assertEquals(1, cardsCounts.get("user1"));
+        assertEquals(2, cardsCounts.get("user2"));
+        assertEquals(0, cardsCounts.get("user3"));
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Свойство: новая реализация на сканировании символов дает те же результаты,
+ * что и прежняя на регулярных выражениях, для любых входных строк.
+ */
+class CardMaskingUtilTest {
+
+    private static final int SAMPLES = 20_000;
+
+    // Цифры, пробельные символы \s, буквы и похожие на них символы: арабская цифра, NBSP, figure space
+    private static final char[] ALPHABET = "0123456789 \t\n\u000B\f\r-aZ\u0663\u00A0\u2007|".toCharArray();
+
+    private final CardMaskingUtil cardMaskingUtil = new CardMaskingUtil();
+    private final Random random = new Random(20240117L);
+
+    @Test
+    void testRandomInputs_MatchLegacyImplementation() {
+        for (int i = 0; i < SAMPLES; i++) {
+            String value = randomInput();
+            assertEquivalent(value);
+        }
+    }
+
+    @Test
+    void testValidCardNumbers_MatchLegacyImplementation() {
+        // Случайные Luhn-валидные номера в разных форматах, чтобы true проверялся не только на фиксированных примерах
+        for (int i = 0; i < SAMPLES; i++) {
+            String number = randomLuhnNumber();
+            assertTrue(cardMaskingUtil.isValidCardNumber(number), number);
+            assertEquivalent(number);
+            assertEquivalent(withRandomWhitespace(number));
+        }
+    }
+
+    @Test
+    void testEdgeCases() {
+        assertEquals("****", cardMaskingUtil.maskCardNumber((String) null));
+        assertEquals("****", cardMaskingUtil.maskCardNumber((char[]) null));
+        assertEquals("", cardMaskingUtil.formatCardNumber((String) null));
+        assertFalse(cardMaskingUtil.isValidCardNumber((String) null));
+        assertFalse(cardMaskingUtil.isValidCardNumber((char[]) null));
+
+        assertEquals("**** **** **** 0366", cardMaskingUtil.maskCardNumber("4532015112830366"));
+        assertEquals("4532 0151 1283 0366", cardMaskingUtil.formatCardNumber("4532\t0151\n1283 0366"));
+        assertEquals("0366", cardMaskingUtil.getLastFour("4532 0151 1283 0366".toCharArray()));
+        assertTrue(cardMaskingUtil.isValidCardNumber("4532 0151 1283 0366".toCharArray()));
+        assertFalse(cardMaskingUtil.isValidCardNumber("4532015112830367"));
+        assertFalse(cardMaskingUtil.isValidCardNumber("45320151128303660000"));
+    }
+
+    private void assertEquivalent(String value) {
+        assertEquals(legacyMaskCardNumber(value), cardMaskingUtil.maskCardNumber(value), describe(value));
+        assertEquals(legacyFormatCardNumber(value), cardMaskingUtil.formatCardNumber(value), describe(value));
+        assertEquals(legacyIsValidCardNumber(value), cardMaskingUtil.isValidCardNumber(value), describe(value));
+        assertEquals(legacyGetLastFour(value), cardMaskingUtil.getLastFour(value), describe(value));
+
+        char[] chars = value.toCharArray();
+        assertEquals(legacyMaskCardNumber(value), cardMaskingUtil.maskCardNumber(chars), describe(value));
+        assertEquals(legacyFormatCardNumber(value), cardMaskingUtil.formatCardNumber(chars), describe(value));
+        assertEquals(legacyIsValidCardNumber(value), cardMaskingUtil.isValidCardNumber(chars), describe(value));
+        assertEquals(legacyGetLastFour(value), cardMaskingUtil.getLastFour(chars), describe(value));
+    }
+
+    private String randomInput() {
+        int length = random.nextInt(24);
+        char[] chars = new char[length];
+        // Чаще всего только цифры и пробелы, иначе почти все строки отсекаются на первом символе
+        boolean digitsOnly = random.nextInt(3) > 0;
+        for (int i = 0; i < length; i++) {
+            chars[i] = digitsOnly && random.nextInt(5) > 0
+                    ? (char) ('0' + random.nextInt(10))
+                    : ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    private String randomLuhnNumber() {
+        int[] digits = new int[16];
+        int sum = 0;
+        for (int i = 0; i < 15; i++) {
+            digits[i] = random.nextInt(10);
+            int digit = digits[i];
+            // При 16 цифрах удваиваются позиции с четным индексом слева
+            if (i % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        digits[15] = (10 - sum % 10) % 10;
+
+        StringBuilder number = new StringBuilder(16);
+        for (int digit : digits) {
+            number.append(digit);
+        }
+        return number.toString();
+    }
+
+    private String withRandomWhitespace(String number) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < number.length(); i++) {
+            while (random.nextInt(4) == 0) {
+                result.append(" \t\n\u000B\f\r".charAt(random.nextInt(6)));
+            }
+            result.append(number.charAt(i));
+        }
+        return result.toString();
+    }
+
+    private String describe(String value) {
+        return value.chars()
+                .mapToObj(c -> String.format("\\u%04X", c))
+                .reduce("", String::concat);
+    }
+
+    // Прежняя реализация CardMaskingUtil
+
+    private String legacyMaskCardNumber(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 4) {
+            return "****";
+        }
+        String cleanNumber = cardNumber.replaceAll("\\s+", "");
+        if (cleanNumber.length() != 16) {
+            return "**** **** **** " + cleanNumber.substring(Math.max(0, cleanNumber.length() - 4));
+        }
+        return "**** **** **** " + cleanNumber.substring(12);
+    }
+
+    private String legacyGetLastFour(String cardNumber) {
+        String cleanNumber = cardNumber.replaceAll("\\s+", "");
+        return cleanNumber.substring(Math.max(0, cleanNumber.length() - 4));
+    }
+
+    private String legacyFormatCardNumber(String cardNumber) {
+        if (cardNumber == null || cardNumber.isEmpty()) {
+            return "";
+        }
+        String cleanNumber = cardNumber.replaceAll("\\s+", "");
+        if (cleanNumber.length() != 16) {
+            return cleanNumber;
+        }
+        return cleanNumber.substring(0, 4) + " " +
+               cleanNumber.substring(4, 8) + " " +
+               cleanNumber.substring(8, 12) + " " +
+               cleanNumber.substring(12);
+    }
+
+    private boolean legacyIsValidCardNumber(String cardNumber) {
+        if (cardNumber == null) {
+            return false;
+        }
+        String cleanNumber = cardNumber.replaceAll("\\s+", "");
+        if (cleanNumber.length() != 16 || !cleanNumber.matches("\\d+")) {
+            return false;
+        }
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = cleanNumber.length() - 1; i >= 0; i--) {
+            int digit = Character.getNumericValue(cleanNumber.charAt(i));
+            if (alternate) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+}